@@ -0,0 +1,95 @@
+package com.miowsis.ai.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Compares the single-pass analyzer against the previous lowercase/regex post-processing.
+// Run with: ./gradlew :ai-service:jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseAnalyzerBenchmark {
+
+    private static final List<String> COMMON_CONCEPTS = List.of(
+        "diversification", "compound interest", "market volatility",
+        "dollar-cost averaging", "asset allocation", "risk tolerance",
+        "ESG investing", "expense ratio", "dividend yield"
+    );
+
+    private final ResponseAnalyzer analyzer = new ResponseAnalyzer();
+    private String response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= 12; i++) {
+            builder.append("Building wealth steadily takes patience and a long-term view of your savings.\n")
+                    .append(i).append(". Keep contributing through round-ups and recurring deposits every month.\n")
+                    .append("• Revisit your goals when your income or expenses change.\n");
+        }
+        builder.append("Over time, asset allocation and dollar-cost averaging keep your Portfolio aligned with your ")
+                .append("risk tolerance, while ESG investing lets your values show up in your holdings.\n");
+        response = builder.toString();
+    }
+
+    @Benchmark
+    public void analyzer(Blackhole blackhole) {
+        blackhole.consume(analyzer.suggestFollowUps(response));
+        blackhole.consume(analyzer.actionItems(response));
+        blackhole.consume(analyzer.relatedConcepts(response));
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(legacySuggestions(response));
+        blackhole.consume(legacyActionItems(response));
+        blackhole.consume(legacyRelatedConcepts(response));
+    }
+
+    private static List<String> legacySuggestions(String response) {
+        List<String> suggestions = new ArrayList<>();
+        if (response.toLowerCase().contains("esg")) {
+            suggestions.add("Tell me more about ESG scores");
+        }
+        if (response.toLowerCase().contains("portfolio")) {
+            suggestions.add("How can I optimize my portfolio?");
+        }
+        if (response.toLowerCase().contains("risk")) {
+            suggestions.add("What's my current risk level?");
+        }
+        return suggestions;
+    }
+
+    private static List<String> legacyActionItems(String response) {
+        return Arrays.stream(response.split("\n"))
+                .filter(line -> line.matches("^\\d+\\..*") || line.contains("•"))
+                .map(line -> line.replaceAll("^[\\d+\\.]\\s*", "").trim())
+                .limit(5)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> legacyRelatedConcepts(String explanation) {
+        return COMMON_CONCEPTS.stream()
+                .filter(concept -> explanation.toLowerCase().contains(concept.toLowerCase()))
+                .limit(3)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,18 @@
+package com.miowsis.ai.config;
+
+import com.miowsis.ai.listener.UserContextEventListener;
+import com.miowsis.ai.service.SuggestionPrefetchService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // Listener and scheduled methods are only registered when their bean is created, so a lazy bean
+    // would never consume context events or sweep expired prefetches
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(UserContextEventListener.class, SuggestionPrefetchService.class);
+    }
+}
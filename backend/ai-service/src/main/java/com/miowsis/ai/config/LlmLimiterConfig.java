@@ -0,0 +1,21 @@
+package com.miowsis.ai.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "openai.limiter")
+@Getter
+@Setter
+public class LlmLimiterConfig {
+    private Integer initialLimit = 10;
+    private Integer minLimit = 2;
+    private Integer maxLimit = 64;
+    private Double backoffRatio = 0.7;
+    private Integer maxQueueSize = 200;
+    private Duration maxQueueWait = Duration.ofSeconds(5);
+}
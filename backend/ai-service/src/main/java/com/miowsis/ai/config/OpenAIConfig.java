@@ -17,6 +17,7 @@ public class OpenAIConfig {
     private String apiKey;
     private String model = "gpt-4";
     private Integer maxTokens = 1000;
+    private Integer promptTokenBudget = 3000;
     private Double temperature = 0.7;
     private Duration timeout = Duration.ofSeconds(60);
     
@@ -0,0 +1,21 @@
+package com.miowsis.ai.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ai.prefetch")
+@Getter
+@Setter
+public class SuggestionPrefetchConfig {
+    private boolean enabled = false;
+    private Integer topSuggestions = 2;
+    private Duration ttl = Duration.ofMinutes(5);
+    private Integer userTokenBudget = 10000;
+    private Duration budgetWindow = Duration.ofHours(1);
+    private Integer maxEntries = 20000;
+}
@@ -0,0 +1,11 @@
+package com.miowsis.ai.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LlmCapacityExceededException extends RuntimeException {
+    public LlmCapacityExceededException(String message) {
+        super(message);
+    }
+}
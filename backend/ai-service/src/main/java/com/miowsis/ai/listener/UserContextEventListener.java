@@ -0,0 +1,86 @@
+package com.miowsis.ai.listener;
+
+import com.miowsis.ai.service.UserContextCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Every instance keeps its own context cache, so each one consumes the events under its own group id,
+// keyed on the host name. A restarted pod usually gets a new host name and so a new group, and events
+// published before its partitions are assigned are never delivered to it. On every assignment the
+// listener therefore seeks to the end (an old group reused by the same host name has no useful
+// backlog either) and clears the cache, since anything cached before then may have missed events.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserContextEventListener implements ConsumerSeekAware {
+
+    private final UserContextCache userContextCache;
+
+    @KafkaListener(
+            topics = "portfolio-events",
+            groupId = "${spring.application.name}-context-${ai.context-cache.instance-id}",
+            properties = {
+                    "spring.json.use.type.headers=false",
+                    "spring.json.value.default.type=java.util.LinkedHashMap",
+                    "auto.offset.reset=latest"
+            })
+    public void onPortfolioEvent(@Header(KafkaHeaders.RECEIVED_KEY) String eventType,
+                                 @Payload Map<String, Object> event) {
+        UUID userId = extractUserId(event);
+        if (userId != null) {
+            log.debug("Portfolio event {} for user {}, refreshing chat context", eventType, userId);
+            userContextCache.refreshIfPresent(userId);
+        }
+    }
+
+    @KafkaListener(
+            topics = "user-events",
+            groupId = "${spring.application.name}-context-${ai.context-cache.instance-id}",
+            properties = {
+                    "spring.json.use.type.headers=false",
+                    "spring.json.value.default.type=java.util.LinkedHashMap",
+                    "auto.offset.reset=latest"
+            })
+    public void onUserEvent(@Header(KafkaHeaders.RECEIVED_KEY) String eventType,
+                            @Payload Map<String, Object> event) {
+        UUID userId = extractUserId(event);
+        if (userId == null) {
+            return;
+        }
+
+        switch (eventType) {
+            case "user.login" -> userContextCache.warm(userId);
+            case "user.logout", "user.locked" -> userContextCache.evict(userId);
+            default -> userContextCache.refreshIfPresent(userId);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+        userContextCache.clear();
+    }
+
+    private UUID extractUserId(Map<String, Object> event) {
+        Object userId = event.get("userId");
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(userId.toString());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring event with malformed userId: {}", userId);
+            return null;
+        }
+    }
+}
@@ -9,16 +9,17 @@ import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
 import com.theokanning.openai.service.OpenAiService;
+import io.reactivex.disposables.Disposable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,7 +28,11 @@ public class AiAssistantService {
     
     private final OpenAiService openAiService;
     private final ChatHistoryRepository chatHistoryRepository;
-    private final ContextEnrichmentService contextService;
+    private final UserContextCache userContextCache;
+    private final PromptAssembler promptAssembler;
+    private final LlmConcurrencyLimiter concurrencyLimiter;
+    private final ResponseAnalyzer responseAnalyzer;
+    private final SuggestionPrefetchService prefetchService;
     private final OpenAIConfig config;
     
     private static final String SYSTEM_PROMPT = """
@@ -57,9 +62,15 @@ public class AiAssistantService {
         """;
     
     public Mono<ChatResponse> chat(UUID userId, ChatRequest request) {
-        return enrichContext(userId, request)
-                .flatMap(context -> {
-                    List<ChatMessage> messages = buildMessages(userId, request, context);
+        Optional<String> prefetched = prefetchService.take(userId, request.getMessage());
+        if (prefetched.isPresent()) {
+            return Mono.just(completeChat(userId, request, prefetched.get()));
+        }
+        
+        // Context enrichment and history lookup are independent, so run them concurrently
+        return Mono.zip(enrichContext(userId, request), loadHistory(userId))
+                .flatMap(tuple -> {
+                    List<ChatMessage> messages = buildMessages(request.getMessage(), tuple.getT1(), tuple.getT2());
                     
                     ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
                             .model(config.getModel())
@@ -68,25 +79,37 @@ public class AiAssistantService {
                             .temperature(config.getTemperature())
                             .build();
                     
-                    return Mono.fromCallable(() -> openAiService.createChatCompletion(completionRequest))
+                    return concurrencyLimiter.execute(LlmPriority.CHAT,
+                                    Mono.fromCallable(() -> openAiService.createChatCompletion(completionRequest)))
                             .map(result -> {
                                 String response = result.getChoices().get(0).getMessage().getContent();
-                                saveChat(userId, request.getMessage(), response);
-                                
-                                return ChatResponse.builder()
-                                        .message(response)
-                                        .conversationId(UUID.randomUUID().toString())
-                                        .timestamp(LocalDateTime.now())
-                                        .suggestions(generateSuggestions(response))
-                                        .build();
+                                ChatResponse chatResponse = completeChat(userId, request, response);
+                                prefetchSuggestions(userId, request.getMessage(), response,
+                                        tuple.getT1(), tuple.getT2(), chatResponse.getSuggestions());
+                                return chatResponse;
                             });
                 });
     }
     
     public Flux<ChatStreamResponse> chatStream(UUID userId, ChatRequest request) {
-        return enrichContext(userId, request)
-                .flatMapMany(context -> {
-                    List<ChatMessage> messages = buildMessages(userId, request, context);
+        Optional<String> prefetched = prefetchService.take(userId, request.getMessage());
+        if (prefetched.isPresent()) {
+            saveChat(userId, request.getMessage(), prefetched.get());
+            return Flux.just(
+                    ChatStreamResponse.builder()
+                            .content(prefetched.get())
+                            .isComplete(false)
+                            .build(),
+                    ChatStreamResponse.builder()
+                            .content("")
+                            .isComplete(true)
+                            .conversationId(UUID.randomUUID().toString())
+                            .build());
+        }
+        
+        return Mono.zip(enrichContext(userId, request), loadHistory(userId))
+                .flatMapMany(tuple -> {
+                    List<ChatMessage> messages = buildMessages(request.getMessage(), tuple.getT1(), tuple.getT2());
                     
                     ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
                             .model(config.getModel())
@@ -96,10 +119,10 @@ public class AiAssistantService {
                             .stream(true)
                             .build();
                     
-                    return Flux.create(sink -> {
+                    return concurrencyLimiter.execute(LlmPriority.STREAMING, Flux.<ChatStreamResponse>create(sink -> {
                         StringBuilder fullResponse = new StringBuilder();
                         
-                        openAiService.streamChatCompletion(completionRequest)
+                        Disposable stream = openAiService.streamChatCompletion(completionRequest)
                                 .doOnNext(chunk -> {
                                     String content = chunk.getChoices().get(0).getMessage().getContent();
                                     if (content != null) {
@@ -121,7 +144,10 @@ public class AiAssistantService {
                                 })
                                 .doOnError(sink::error)
                                 .subscribe();
-                    });
+                        
+                        // Stop consuming the provider stream when the client goes away
+                        sink.onDispose(stream::dispose);
+                    }));
                 });
     }
     
@@ -179,45 +205,75 @@ public class AiAssistantService {
     }
     
     private Mono<String> enrichContext(UUID userId, ChatRequest request) {
-        return contextService.getUserContext(userId)
-                .map(context -> String.format("""
-                    User Context:
-                    - Portfolio Value: $%.2f
-                    - ESG Score: %d
-                    - Investment Goals: %s
-                    - Risk Profile: %s
-                    - Recent Activity: %s
-                    """,
-                    context.getPortfolioValue(),
-                    context.getEsgScore(),
-                    String.join(", ", context.getGoals()),
-                    context.getRiskProfile(),
-                    context.getRecentActivity()
-                ));
+        return userContextCache.getContext(userId);
     }
     
-    private List<ChatMessage> buildMessages(UUID userId, ChatRequest request, String context) {
-        List<ChatMessage> messages = new ArrayList<>();
-        
-        // System message
-        messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), SYSTEM_PROMPT));
-        
-        // Add context
-        messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), context));
-        
-        // Add chat history (last 5 messages)
-        List<ChatHistory> history = chatHistoryRepository.findTop5ByUserIdOrderByTimestampDesc(userId);
-        Collections.reverse(history);
+    private Mono<List<ChatHistory>> loadHistory(UUID userId) {
+        // Newest turns first; the assembler keeps as many as fit in the prompt token budget
+        return Mono.fromCallable(() -> chatHistoryRepository.findTop5ByUserIdOrderByTimestampDesc(userId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    private List<ChatMessage> buildMessages(String message, String context, List<ChatHistory> history) {
+        return promptAssembler.assemble(SYSTEM_PROMPT, context, List.of(), history, message);
+    }
+    
+    private ChatResponse completeChat(UUID userId, ChatRequest request, String response) {
+        saveChat(userId, request.getMessage(), response);
         
-        for (ChatHistory chat : history) {
-            messages.add(new ChatMessage(ChatMessageRole.USER.value(), chat.getUserMessage()));
-            messages.add(new ChatMessage(ChatMessageRole.ASSISTANT.value(), chat.getAssistantResponse()));
+        return ChatResponse.builder()
+                .message(response)
+                .conversationId(UUID.randomUUID().toString())
+                .timestamp(LocalDateTime.now())
+                .suggestions(generateSuggestions(response))
+                .build();
+    }
+    
+    private void prefetchSuggestions(UUID userId, String message, String response, String context,
+                                     List<ChatHistory> history, List<String> suggestions) {
+        if (!prefetchService.isEnabled()) {
+            return;
         }
         
-        // Add current message
-        messages.add(new ChatMessage(ChatMessageRole.USER.value(), request.getMessage()));
+        // The turn that produced the suggestions is part of the conversation they follow up on
+        List<ChatHistory> conversation = new ArrayList<>(history.size() + 1);
+        conversation.add(ChatHistory.builder()
+                .userId(userId)
+                .userMessage(message)
+                .assistantResponse(response)
+                .timestamp(LocalDateTime.now())
+                .build());
+        conversation.addAll(history);
+        
+        // The assembler caps the prompt, so budget plus completion is the worst case
+        int estimatedTokens = config.getPromptTokenBudget() + config.getMaxTokens();
         
-        return messages;
+        suggestions.stream()
+                .limit(prefetchService.topSuggestions())
+                .filter(suggestion -> prefetchService.tryReserve(userId, suggestion, estimatedTokens))
+                .forEach(suggestion -> {
+                    ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
+                            .model(config.getModel())
+                            .messages(buildMessages(suggestion, context, conversation))
+                            .maxTokens(config.getMaxTokens())
+                            .temperature(config.getTemperature())
+                            .build();
+                    
+                    concurrencyLimiter.execute(LlmPriority.PREFETCH,
+                                    Mono.fromCallable(() -> openAiService.createChatCompletion(completionRequest)))
+                            .subscribe(
+                                    result -> prefetchService.store(userId, suggestion,
+                                            result.getChoices().get(0).getMessage().getContent(),
+                                            estimatedTokens,
+                                            result.getUsage() != null
+                                                    ? (int) result.getUsage().getTotalTokens()
+                                                    : estimatedTokens),
+                                    error -> {
+                                        log.debug("Skipped prefetch of '{}' for user {}: {}",
+                                                suggestion, userId, error.getMessage());
+                                        prefetchService.abandon(userId, suggestion, estimatedTokens);
+                                    });
+                });
     }
     
     private Mono<String> generateResponse(String prompt) {
@@ -231,7 +287,8 @@ public class AiAssistantService {
                 .temperature(config.getTemperature())
                 .build();
         
-        return Mono.fromCallable(() -> openAiService.createChatCompletion(request))
+        return concurrencyLimiter.execute(LlmPriority.ADVISORY,
+                        Mono.fromCallable(() -> openAiService.createChatCompletion(request)))
                 .map(result -> result.getChoices().get(0).getMessage().getContent());
     }
     
@@ -248,33 +305,12 @@ public class AiAssistantService {
     
     private List<String> generateSuggestions(String response) {
         // Extract potential follow-up questions based on the response
-        List<String> suggestions = new ArrayList<>();
-        
-        if (response.toLowerCase().contains("esg")) {
-            suggestions.add("Tell me more about ESG scores");
-        }
-        if (response.toLowerCase().contains("portfolio")) {
-            suggestions.add("How can I optimize my portfolio?");
-        }
-        if (response.toLowerCase().contains("risk")) {
-            suggestions.add("What's my current risk level?");
-        }
-        
-        return suggestions.isEmpty() ? 
-            List.of(
-                "What are the best ESG investments?",
-                "How do round-ups work?",
-                "Show me my portfolio performance"
-            ) : suggestions;
+        return responseAnalyzer.suggestFollowUps(response);
     }
     
     private List<String> extractActionItems(String response) {
-        // Simple extraction of action items from the response
-        return Arrays.stream(response.split("\n"))
-                .filter(line -> line.matches("^\\d+\\..*") || line.contains("•"))
-                .map(line -> line.replaceAll("^[\\d+\\.]\\s*", "").trim())
-                .limit(5)
-                .collect(Collectors.toList());
+        // Numbered or bulleted lines from the response
+        return responseAnalyzer.actionItems(response);
     }
     
     private String calculateTimeToGoal(GoalAdviceRequest request) {
@@ -290,15 +326,6 @@ public class AiAssistantService {
     
     private List<String> extractRelatedConcepts(String explanation) {
         // Extract related financial concepts mentioned in the explanation
-        List<String> commonConcepts = List.of(
-            "diversification", "compound interest", "market volatility",
-            "dollar-cost averaging", "asset allocation", "risk tolerance",
-            "ESG investing", "expense ratio", "dividend yield"
-        );
-        
-        return commonConcepts.stream()
-                .filter(concept -> explanation.toLowerCase().contains(concept.toLowerCase()))
-                .limit(3)
-                .collect(Collectors.toList());
+        return responseAnalyzer.relatedConcepts(explanation);
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.miowsis.ai.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+// Aho-Corasick matcher compiled to a dense ASCII transition table. Matching is case-insensitive,
+// makes a single pass over the text and allocates nothing; up to 64 keywords are reported as a bitmask.
+final class KeywordAutomaton {
+
+    private static final int ALPHABET = 128;
+    private static final int MAX_KEYWORDS = Long.SIZE;
+
+    private final int[][] transitions;
+    private final long[] outputs;
+    private final int keywordCount;
+
+    KeywordAutomaton(List<String> keywords) {
+        if (keywords.size() > MAX_KEYWORDS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYWORDS + " keywords are supported");
+        }
+        this.keywordCount = keywords.size();
+
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Long> outputTable = new ArrayList<>();
+        gotoTable.add(newState());
+        outputTable.add(0L);
+
+        // Build the keyword trie
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int c = fold(keyword.charAt(i));
+                if (c < 0) {
+                    throw new IllegalArgumentException("Keywords must be ASCII: " + keyword);
+                }
+                if (gotoTable.get(state)[c] < 0) {
+                    gotoTable.get(state)[c] = gotoTable.size();
+                    gotoTable.add(newState());
+                    outputTable.add(0L);
+                }
+                state = gotoTable.get(state)[c];
+            }
+            outputTable.set(state, outputTable.get(state) | (1L << k));
+        }
+
+        // Breadth-first pass resolving failure links into direct transitions
+        transitions = gotoTable.toArray(new int[0][]);
+        outputs = outputTable.stream().mapToLong(Long::longValue).toArray();
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] |= outputs[failure[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    // Bit k of the result is set when keyword k occurs anywhere in the text
+    long match(CharSequence text) {
+        long all = keywordCount == MAX_KEYWORDS ? -1L : (1L << keywordCount) - 1;
+        long found = 0;
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            int c = fold(text.charAt(i));
+            state = c < 0 ? 0 : transitions[state][c];
+            found |= outputs[state];
+            if (found == all) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private static int fold(char c) {
+        if (c >= ALPHABET) {
+            return -1;
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+}
@@ -0,0 +1,230 @@
+package com.miowsis.ai.service;
+
+import com.miowsis.ai.config.LlmLimiterConfig;
+import com.miowsis.ai.exception.LlmCapacityExceededException;
+import com.theokanning.openai.OpenAiHttpException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@Slf4j
+public class LlmConcurrencyLimiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int ABANDONED = 2;
+
+    private final LlmLimiterConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparing((Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.sequence));
+
+    private final Map<LlmPriority, Timer> queueWaitTimers = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Counter> queueFullCounters = new EnumMap<>(LlmPriority.class);
+    private final Map<LlmPriority, Counter> queueTimeoutCounters = new EnumMap<>(LlmPriority.class);
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private long sequence;
+
+    public LlmConcurrencyLimiter(LlmLimiterConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+
+        for (LlmPriority priority : LlmPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            queueWaitTimers.put(priority, Timer.builder("ai.llm.queue.wait")
+                    .tag("priority", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            queueFullCounters.put(priority, Counter.builder("ai.llm.rejected")
+                    .tag("priority", tag)
+                    .tag("reason", "queue_full")
+                    .register(meterRegistry));
+            queueTimeoutCounters.put(priority, Counter.builder("ai.llm.rejected")
+                    .tag("priority", tag)
+                    .tag("reason", "queue_timeout")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("ai.llm.concurrency.limit", this, limiter -> limiter.limit).register(meterRegistry);
+        Gauge.builder("ai.llm.inflight", this, limiter -> limiter.inFlight).register(meterRegistry);
+        Gauge.builder("ai.llm.queue.size", this, limiter -> limiter.queue.size()).register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(LlmPriority priority, Mono<T> call) {
+        return acquire(priority).flatMap(permit -> call
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(permit::recordError)
+                .doFinally(signal -> permit.release()));
+    }
+
+    public <T> Flux<T> execute(LlmPriority priority, Flux<T> call) {
+        return acquire(priority).flatMapMany(permit -> call
+                .doOnError(permit::recordError)
+                .doFinally(signal -> permit.release()));
+    }
+
+    private Mono<Permit> acquire(LlmPriority priority) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(priority, sink);
+            boolean granted = false;
+
+            lock.lock();
+            try {
+                if (queue.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    granted = true;
+                } else if (priority != LlmPriority.PREFETCH && queue.size() < config.getMaxQueueSize()) {
+                    // Speculative work only runs on spare capacity and never waits in line
+                    waiter.sequence = sequence++;
+                    queue.add(waiter);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (granted) {
+                waiter.state.set(GRANTED);
+                grant(waiter);
+                return;
+            }
+            if (waiter.sequence < 0) {
+                // Shed immediately rather than queueing behind a backlog we cannot serve
+                queueFullCounters.get(priority).increment();
+                sink.error(new LlmCapacityExceededException("AI assistant is at capacity, please retry shortly"));
+                return;
+            }
+
+            Disposable expiry = Schedulers.parallel().schedule(() -> expire(waiter),
+                    config.getMaxQueueWait().toMillis(), TimeUnit.MILLISECONDS);
+            sink.onDispose(expiry);
+            sink.onCancel(() -> abandon(waiter));
+        });
+    }
+
+    private void grant(Waiter waiter) {
+        queueWaitTimers.get(waiter.priority).record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+        waiter.sink.success(waiter.permit);
+    }
+
+    private void expire(Waiter waiter) {
+        if (!waiter.state.compareAndSet(WAITING, ABANDONED)) {
+            return;
+        }
+        removeFromQueue(waiter);
+        queueTimeoutCounters.get(waiter.priority).increment();
+        waiter.sink.error(new LlmCapacityExceededException("Timed out waiting for AI assistant capacity"));
+    }
+
+    private void abandon(Waiter waiter) {
+        if (waiter.state.compareAndSet(WAITING, ABANDONED)) {
+            removeFromQueue(waiter);
+        } else if (waiter.state.get() == GRANTED) {
+            // Cancelled while the permit was being handed over
+            waiter.permit.release();
+        }
+    }
+
+    private void removeFromQueue(Waiter waiter) {
+        lock.lock();
+        try {
+            queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRelease(boolean overloaded) {
+        List<Waiter> admitted = new ArrayList<>();
+
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                // Multiplicative decrease on provider pushback
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+            } else if (!queue.isEmpty() || inFlight + 1 >= (int) limit) {
+                // Additive increase, only while demand actually presses against the limit
+                limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+            }
+
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter next = queue.poll();
+                if (next.state.compareAndSet(WAITING, GRANTED)) {
+                    inFlight++;
+                    admitted.add(next);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        admitted.forEach(this::grant);
+    }
+
+    private static boolean isOverloadSignal(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAiHttpException http && (http.statusCode == 429 || http.statusCode >= 500)) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Waiter {
+        private final LlmPriority priority;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final Permit permit = new Permit();
+        private long sequence = -1;
+
+        private Waiter(LlmPriority priority, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.sink = sink;
+        }
+    }
+
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean overloaded;
+
+        private void recordError(Throwable error) {
+            if (isOverloadSignal(error)) {
+                overloaded = true;
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(overloaded);
+            }
+        }
+    }
+}
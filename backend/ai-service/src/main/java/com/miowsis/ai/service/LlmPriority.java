@@ -0,0 +1,6 @@
+package com.miowsis.ai.service;
+
+// Declaration order is queue order: earlier constants are admitted first
+public enum LlmPriority {
+    STREAMING, CHAT, ADVISORY, PREFETCH
+}
@@ -0,0 +1,111 @@
+package com.miowsis.ai.service;
+
+import com.miowsis.ai.config.OpenAIConfig;
+import com.miowsis.ai.entity.ChatHistory;
+import com.theokanning.openai.completion.chat.ChatMessage;
+import com.theokanning.openai.completion.chat.ChatMessageRole;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class PromptAssembler {
+
+    // Below this many tokens a summary of dropped turns carries no useful signal
+    private static final int MIN_SUMMARY_TOKENS = 24;
+    private static final int MAX_SUMMARY_TOPIC_CHARS = 120;
+    private static final String REFERENCE_PREFIX = "Reference material:\n";
+
+    private final TokenCounter tokenCounter;
+    private final OpenAIConfig config;
+
+    // System prompt and the current message are always sent; context, documents and history
+    // (newest first) follow while they fit, and dropped turns are folded into a short summary
+    public List<ChatMessage> assemble(String systemPrompt, String context, List<String> retrievedDocuments,
+                                      List<ChatHistory> history, String userMessage) {
+        int remaining = config.getPromptTokenBudget()
+                - tokenCounter.countMessage(systemPrompt)
+                - tokenCounter.countMessage(userMessage);
+
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), systemPrompt));
+
+        // User context
+        if (context != null && !context.isBlank()) {
+            String packed = fit(context, remaining);
+            if (!packed.isEmpty()) {
+                messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), packed));
+                remaining -= tokenCounter.countMessage(packed);
+            }
+        }
+
+        // Retrieved reference documents, most relevant first
+        for (String document : retrievedDocuments) {
+            String packed = fit(document, remaining - tokenCounter.count(REFERENCE_PREFIX));
+            if (packed.isEmpty()) {
+                break;
+            }
+            messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), REFERENCE_PREFIX + packed));
+            remaining -= tokenCounter.countMessage(REFERENCE_PREFIX + packed);
+            if (!packed.equals(document)) {
+                break;
+            }
+        }
+
+        // Chat history, newest turns first until the budget runs out
+        Deque<ChatMessage> keptTurns = new ArrayDeque<>();
+        int index = 0;
+        for (; index < history.size(); index++) {
+            ChatHistory chat = history.get(index);
+            int turnTokens = tokenCounter.countMessage(chat.getUserMessage())
+                    + tokenCounter.countMessage(chat.getAssistantResponse());
+            if (turnTokens > remaining) {
+                break;
+            }
+            keptTurns.addFirst(new ChatMessage(ChatMessageRole.ASSISTANT.value(), chat.getAssistantResponse()));
+            keptTurns.addFirst(new ChatMessage(ChatMessageRole.USER.value(), chat.getUserMessage()));
+            remaining -= turnTokens;
+        }
+
+        if (index < history.size() && remaining >= MIN_SUMMARY_TOKENS) {
+            String summary = fit(summarize(history.subList(index, history.size())), remaining);
+            if (!summary.isEmpty()) {
+                messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), summary));
+            }
+        }
+
+        messages.addAll(keptTurns);
+        messages.add(new ChatMessage(ChatMessageRole.USER.value(), userMessage));
+
+        return messages;
+    }
+
+    private String fit(String content, int remainingTokens) {
+        int available = remainingTokens - tokenCounter.countMessage("");
+        if (available <= 0) {
+            return "";
+        }
+        return tokenCounter.truncate(content, available);
+    }
+
+    private String summarize(List<ChatHistory> droppedTurns) {
+        StringBuilder summary = new StringBuilder("Earlier in this conversation the user asked about: ");
+        // Oldest first so the summary reads chronologically
+        for (int i = droppedTurns.size() - 1; i >= 0; i--) {
+            String question = droppedTurns.get(i).getUserMessage().strip();
+            if (question.length() > MAX_SUMMARY_TOPIC_CHARS) {
+                question = question.substring(0, MAX_SUMMARY_TOPIC_CHARS) + "…";
+            }
+            summary.append(question);
+            if (i > 0) {
+                summary.append("; ");
+            }
+        }
+        return summary.toString();
+    }
+}
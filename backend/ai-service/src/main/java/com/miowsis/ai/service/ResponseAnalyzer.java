@@ -0,0 +1,122 @@
+package com.miowsis.ai.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class ResponseAnalyzer {
+
+    private static final List<String> SUGGESTION_KEYWORDS = List.of("esg", "portfolio", "risk");
+    private static final List<String> SUGGESTIONS = List.of(
+        "Tell me more about ESG scores",
+        "How can I optimize my portfolio?",
+        "What's my current risk level?"
+    );
+    private static final List<String> DEFAULT_SUGGESTIONS = List.of(
+        "What are the best ESG investments?",
+        "How do round-ups work?",
+        "Show me my portfolio performance"
+    );
+
+    private static final List<String> COMMON_CONCEPTS = List.of(
+        "diversification", "compound interest", "market volatility",
+        "dollar-cost averaging", "asset allocation", "risk tolerance",
+        "ESG investing", "expense ratio", "dividend yield"
+    );
+
+    private static final int MAX_RELATED_CONCEPTS = 3;
+    private static final int MAX_ACTION_ITEMS = 5;
+    private static final char BULLET = '•';
+
+    private final KeywordAutomaton suggestionMatcher = new KeywordAutomaton(SUGGESTION_KEYWORDS);
+    private final KeywordAutomaton conceptMatcher = new KeywordAutomaton(COMMON_CONCEPTS);
+
+    public List<String> suggestFollowUps(String response) {
+        long matched = suggestionMatcher.match(response);
+        if (matched == 0) {
+            return DEFAULT_SUGGESTIONS;
+        }
+        return select(SUGGESTIONS, matched, SUGGESTIONS.size());
+    }
+
+    public List<String> relatedConcepts(String explanation) {
+        return select(COMMON_CONCEPTS, conceptMatcher.match(explanation), MAX_RELATED_CONCEPTS);
+    }
+
+    // Numbered ("1. ...") or bulleted lines, with the marker stripped
+    public List<String> actionItems(String response) {
+        List<String> items = new ArrayList<>(MAX_ACTION_ITEMS);
+        int length = response.length();
+        int lineStart = 0;
+
+        while (lineStart <= length && items.size() < MAX_ACTION_ITEMS) {
+            int lineEnd = response.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+
+            int contentStart = numberedItemStart(response, lineStart, lineEnd);
+            if (contentStart < 0 && containsBullet(response, lineStart, lineEnd)) {
+                contentStart = bulletItemStart(response, lineStart, lineEnd);
+            }
+            if (contentStart >= 0) {
+                String item = response.substring(contentStart, lineEnd).strip();
+                if (!item.isEmpty()) {
+                    items.add(item);
+                }
+            }
+
+            lineStart = lineEnd + 1;
+        }
+        return items;
+    }
+
+    private static List<String> select(List<String> values, long matched, int limit) {
+        List<String> selected = new ArrayList<>(Math.min(limit, Long.bitCount(matched)));
+        for (int i = 0; i < values.size() && selected.size() < limit; i++) {
+            if ((matched & (1L << i)) != 0) {
+                selected.add(values.get(i));
+            }
+        }
+        return selected;
+    }
+
+    // Index just past "<digits>." and any following whitespace, or -1 if the line is not numbered
+    private static int numberedItemStart(String text, int start, int end) {
+        int i = start;
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == start || i >= end || text.charAt(i) != '.') {
+            return -1;
+        }
+        return skipWhitespace(text, i + 1, end);
+    }
+
+    private static boolean containsBullet(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == BULLET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bulletItemStart(String text, int start, int end) {
+        int i = skipWhitespace(text, start, end);
+        if (i < end && text.charAt(i) == BULLET) {
+            return skipWhitespace(text, i + 1, end);
+        }
+        return start;
+    }
+
+    private static int skipWhitespace(String text, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,181 @@
+package com.miowsis.ai.service;
+
+import com.miowsis.ai.config.SuggestionPrefetchConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class SuggestionPrefetchService {
+
+    private final SuggestionPrefetchConfig config;
+
+    private final Map<PrefetchKey, PrefetchedAnswer> answers = new ConcurrentHashMap<>();
+    private final Map<PrefetchKey, Boolean> inProgress = new ConcurrentHashMap<>();
+    private final Map<UUID, TokenBudget> budgets = new ConcurrentHashMap<>();
+
+    private final Counter generated;
+    private final Counter hits;
+    private final Counter expired;
+    private final Counter skippedBudget;
+    private final Counter tokensUsed;
+    private final Counter tokensWasted;
+
+    public SuggestionPrefetchService(SuggestionPrefetchConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.generated = meterRegistry.counter("ai.prefetch.answers", "outcome", "generated");
+        this.hits = meterRegistry.counter("ai.prefetch.answers", "outcome", "hit");
+        this.expired = meterRegistry.counter("ai.prefetch.answers", "outcome", "expired");
+        this.skippedBudget = meterRegistry.counter("ai.prefetch.answers", "outcome", "over_budget");
+        this.tokensUsed = meterRegistry.counter("ai.prefetch.tokens", "outcome", "used");
+        this.tokensWasted = meterRegistry.counter("ai.prefetch.tokens", "outcome", "wasted");
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public int topSuggestions() {
+        return config.getTopSuggestions();
+    }
+
+    // Returns a prefetched answer when the message is one of the suggestions we speculated on
+    public Optional<String> take(UUID userId, String message) {
+        if (!config.isEnabled() || message == null) {
+            return Optional.empty();
+        }
+        PrefetchedAnswer answer = answers.remove(new PrefetchKey(userId, normalize(message)));
+        if (answer == null) {
+            return Optional.empty();
+        }
+        if (answer.isExpired()) {
+            recordWaste(answer);
+            return Optional.empty();
+        }
+        hits.increment();
+        tokensUsed.increment(answer.tokens());
+        return Optional.of(answer.content());
+    }
+
+    // Claims the right to prefetch a suggestion, reserving worst-case tokens against the user's budget
+    public boolean tryReserve(UUID userId, String suggestion, int estimatedTokens) {
+        PrefetchKey key = new PrefetchKey(userId, normalize(suggestion));
+        PrefetchedAnswer existing = answers.get(key);
+        if (existing != null && !existing.isExpired()) {
+            return false;
+        }
+        if (answers.size() >= config.getMaxEntries() || inProgress.putIfAbsent(key, Boolean.TRUE) != null) {
+            return false;
+        }
+
+        TokenBudget budget = budgets.compute(userId, (id, current) ->
+                current == null || current.isExpired() ? new TokenBudget(windowEnd(), 0) : current);
+        if (!budget.tryConsume(estimatedTokens, config.getUserTokenBudget())) {
+            inProgress.remove(key);
+            skippedBudget.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void store(UUID userId, String suggestion, String content, int estimatedTokens, int actualTokens) {
+        PrefetchKey key = new PrefetchKey(userId, normalize(suggestion));
+        inProgress.remove(key);
+        refund(userId, estimatedTokens - actualTokens);
+
+        PrefetchedAnswer previous = answers.put(key, new PrefetchedAnswer(content, actualTokens,
+                System.currentTimeMillis() + config.getTtl().toMillis()));
+        if (previous != null) {
+            recordWaste(previous);
+        }
+        generated.increment();
+    }
+
+    public void abandon(UUID userId, String suggestion, int estimatedTokens) {
+        inProgress.remove(new PrefetchKey(userId, normalize(suggestion)));
+        refund(userId, estimatedTokens);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.prefetch.sweep-interval:60000}")
+    public void evictExpired() {
+        answers.entrySet().removeIf(entry -> {
+            if (entry.getValue().isExpired()) {
+                recordWaste(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        budgets.entrySet().removeIf(entry -> entry.getValue().isExpired());
+    }
+
+    private void refund(UUID userId, int tokens) {
+        if (tokens > 0) {
+            TokenBudget budget = budgets.get(userId);
+            if (budget != null) {
+                budget.refund(tokens);
+            }
+        }
+    }
+
+    private void recordWaste(PrefetchedAnswer answer) {
+        expired.increment();
+        tokensWasted.increment(answer.tokens());
+    }
+
+    private long windowEnd() {
+        return System.currentTimeMillis() + config.getBudgetWindow().toMillis();
+    }
+
+    private static String normalize(String text) {
+        return text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record PrefetchKey(UUID userId, String suggestion) {
+    }
+
+    private record PrefetchedAnswer(String content, int tokens, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    private static final class TokenBudget {
+        private final long resetsAt;
+        private final AtomicInteger used;
+
+        private TokenBudget(long resetsAt, int used) {
+            this.resetsAt = resetsAt;
+            this.used = new AtomicInteger(used);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > resetsAt;
+        }
+
+        private boolean tryConsume(int tokens, int limit) {
+            while (true) {
+                int current = used.get();
+                if (current + tokens > limit) {
+                    return false;
+                }
+                if (used.compareAndSet(current, current + tokens)) {
+                    return true;
+                }
+            }
+        }
+
+        private void refund(int tokens) {
+            used.updateAndGet(current -> Math.max(0, current - tokens));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.miowsis.ai.service;
+
+import com.miowsis.ai.config.OpenAIConfig;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+@Slf4j
+public class TokenCounter {
+
+    // Role and separator tokens OpenAI adds around every chat message
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final int MAX_CACHED_ENTRIES = 10_000;
+
+    private final Tokenizer tokenizer;
+
+    // Stored chat history is immutable, so counts are computed once per entry and reused on every turn.
+    // Keyed on the text's SHA-256 rather than the text, so a cached prompt costs 64 characters however
+    // long it is, and no two texts realistically share a key.
+    // Guarded by an explicit lock rather than a monitor so virtual threads never pin on it.
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final Map<String, Integer> cachedCounts = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_CACHED_ENTRIES;
+        }
+    };
+
+    public TokenCounter(OpenAIConfig config) {
+        this.tokenizer = createTokenizer(config.getModel());
+    }
+
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        String key = digest(text);
+        Integer cached = cachedCount(key);
+        if (cached != null) {
+            return cached;
+        }
+        int tokens = estimate(text);
+        cacheLock.lock();
+        try {
+            cachedCounts.put(key, tokens);
+        } finally {
+            cacheLock.unlock();
+        }
+        return tokens;
+    }
+
+    public int countMessage(String content) {
+        return count(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    public String truncate(String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        int tokens = count(text);
+        if (tokens <= maxTokens) {
+            return text;
+        }
+
+        // Start from the proportional cut and shrink until the tokenizer agrees it fits
+        int length = (int) ((long) text.length() * maxTokens / tokens);
+        String truncated = text.substring(0, length);
+        while (length > 0 && estimate(truncated) > maxTokens) {
+            length = length * 9 / 10;
+            truncated = text.substring(0, length);
+        }
+        return truncated.isEmpty() ? "" : truncated + "…";
+    }
+
+    private Integer cachedCount(String key) {
+        cacheLock.lock();
+        try {
+            return cachedCounts.get(key);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private static String digest(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private int estimate(String text) {
+        if (tokenizer == null) {
+            // Roughly four characters per token for English text
+            return (text.length() + 3) / 4;
+        }
+        return tokenizer.estimateTokenCountInText(text);
+    }
+
+    private static Tokenizer createTokenizer(String model) {
+        try {
+            return new OpenAiTokenizer(model);
+        } catch (RuntimeException e) {
+            log.warn("No local tokenizer for model {}, falling back to character estimate: {}", model, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.miowsis.ai.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class UserContextCache {
+
+    private final ContextEnrichmentService contextService;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    private final Map<UUID, CachedContext> contexts = new ConcurrentHashMap<>();
+    // Concurrent misses for the same user share one fetch. A change event replaces the user's pending
+    // fetch with a new one, and only the fetch still registered here may store its result, so a fetch
+    // that started before the change can never write its stale context back.
+    private final Map<UUID, PendingLoad> pendingLoads = new ConcurrentHashMap<>();
+
+    public UserContextCache(ContextEnrichmentService contextService,
+                            @Value("${ai.context-cache.ttl:10m}") Duration ttl,
+                            @Value("${ai.context-cache.max-entries:50000}") int maxEntries) {
+        this.contextService = contextService;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+    public Mono<String> getContext(UUID userId) {
+        CachedContext cached = contexts.get(userId);
+        if (cached != null && !cached.isExpired()) {
+            return Mono.just(cached.context());
+        }
+        return load(userId);
+    }
+
+    // Recompute only for users we are already serving; everyone else is fetched lazily on their next chat
+    public void refreshIfPresent(UUID userId) {
+        if (contexts.containsKey(userId) || pendingLoads.containsKey(userId)) {
+            contexts.remove(userId);
+            reload(userId).subscribe(
+                    context -> log.debug("Refreshed chat context for user {}", userId),
+                    error -> log.warn("Failed to refresh chat context for user {}: {}", userId, error.getMessage()));
+        }
+    }
+
+    public void warm(UUID userId) {
+        if (!contexts.containsKey(userId)) {
+            load(userId).subscribe(
+                    context -> log.debug("Precomputed chat context for user {}", userId),
+                    error -> log.warn("Failed to precompute chat context for user {}: {}", userId, error.getMessage()));
+        }
+    }
+
+    public void evict(UUID userId) {
+        pendingLoads.remove(userId);
+        contexts.remove(userId);
+    }
+
+    // Drops everything, including fetches in flight, e.g. when events may have been missed
+    public void clear() {
+        pendingLoads.clear();
+        contexts.clear();
+    }
+
+    private Mono<String> load(UUID userId) {
+        return pendingLoads.computeIfAbsent(userId, PendingLoad::new).result;
+    }
+
+    private Mono<String> reload(UUID userId) {
+        return pendingLoads.compute(userId, (id, stale) -> new PendingLoad(id)).result;
+    }
+
+    private Mono<String> fetch(UUID userId) {
+        return contextService.getUserContext(userId)
+                .map(context -> String.format("""
+                    User Context:
+                    - Portfolio Value: $%.2f
+                    - ESG Score: %d
+                    - Investment Goals: %s
+                    - Risk Profile: %s
+                    - Recent Activity: %s
+                    """,
+                    context.getPortfolioValue(),
+                    context.getEsgScore(),
+                    String.join(", ", context.getGoals()),
+                    context.getRiskProfile(),
+                    context.getRecentActivity()
+                ));
+    }
+
+    private void store(UUID userId, String context) {
+        if (contexts.size() >= maxEntries) {
+            evictOldest();
+        }
+        contexts.put(userId, new CachedContext(context, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    private void evictOldest() {
+        contexts.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        if (contexts.size() >= maxEntries) {
+            // Entries expiring soonest are the ones cached longest ago
+            contexts.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().expiresAt()))
+                    .limit(Math.max(1, maxEntries / 10))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(contexts::remove);
+        }
+    }
+
+    private final class PendingLoad {
+        private final Mono<String> result;
+
+        private PendingLoad(UUID userId) {
+            this.result = fetch(userId)
+                    // Checked and stored under the map's lock for this user, so a concurrent reload or
+                    // evict either happens before (and this result is dropped) or after the store
+                    .doOnNext(context -> pendingLoads.computeIfPresent(userId, (id, current) -> {
+                        if (current == this) {
+                            store(id, context);
+                        }
+                        return current;
+                    }))
+                    .doFinally(signal -> pendingLoads.remove(userId, this))
+                    .cache();
+        }
+    }
+
+    private record CachedContext(String context, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.miowsis.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseAnalyzerTest {
+
+    private final ResponseAnalyzer analyzer = new ResponseAnalyzer();
+
+    @Test
+    void suggestFollowUps_shouldMatchKeywordsCaseInsensitively() {
+        List<String> suggestions = analyzer.suggestFollowUps("Your PORTFOLIO has a strong Esg profile.");
+
+        assertEquals(List.of("Tell me more about ESG scores", "How can I optimize my portfolio?"), suggestions);
+    }
+
+    @Test
+    void suggestFollowUps_withoutKeywords_shouldReturnDefaults() {
+        List<String> suggestions = analyzer.suggestFollowUps("Saving a little every week adds up.");
+
+        assertEquals(3, suggestions.size());
+        assertEquals("How do round-ups work?", suggestions.get(1));
+    }
+
+    @Test
+    void relatedConcepts_shouldKeepConceptOrderAndLimitToThree() {
+        String explanation = "Dividend yield and Expense Ratio matter, as do diversification, "
+                + "asset allocation and compound interest.";
+
+        assertEquals(List.of("diversification", "compound interest", "asset allocation"),
+                analyzer.relatedConcepts(explanation));
+    }
+
+    @Test
+    void relatedConcepts_shouldMatchOverlappingKeywords() {
+        assertEquals(List.of("risk tolerance", "ESG investing"),
+                analyzer.relatedConcepts("Your risk tolerance shapes esg investing choices."));
+    }
+
+    @Test
+    void actionItems_shouldStripNumberingAndBullets() {
+        String response = """
+            Here is a plan:
+            1. Set up round-ups
+            12.   Increase your monthly deposit
+              • Review ESG scores quarterly
+            Not an item
+            2.
+            """;
+
+        assertEquals(List.of("Set up round-ups", "Increase your monthly deposit", "Review ESG scores quarterly"),
+                analyzer.actionItems(response));
+    }
+
+    @Test
+    void actionItems_shouldLimitToFive() {
+        String response = "1. a\n2. b\n3. c\n4. d\n5. e\n6. f";
+
+        assertEquals(5, analyzer.actionItems(response).size());
+    }
+}
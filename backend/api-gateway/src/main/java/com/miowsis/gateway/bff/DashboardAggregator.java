@@ -0,0 +1,100 @@
+package com.miowsis.gateway.bff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.miowsis.common.security.IdentityHeaders;
+import com.miowsis.gateway.config.DashboardProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+// Fans the dashboard's reads out to the services in parallel. Each section has its own timeout and a
+// failing section is reported by name instead of failing the whole document.
+@Component
+@Slf4j
+public class DashboardAggregator {
+
+    private final WebClient webClient;
+    private final DashboardProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public DashboardAggregator(WebClient.Builder loadBalancedWebClientBuilder,
+                               DashboardProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Mono<DashboardResult> aggregate(String userId, HttpHeaders requestHeaders) {
+        return Flux.fromIterable(properties.getSections().entrySet())
+                .flatMap(section -> fetch(section.getKey(), section.getValue(), userId, requestHeaders))
+                .collectMap(SectionResult::name)
+                .map(results -> {
+                    // Keep the configured section order regardless of completion order
+                    Map<String, JsonNode> sections = new LinkedHashMap<>();
+                    Map<String, String> failures = new LinkedHashMap<>();
+                    properties.getSections().keySet().forEach(name -> {
+                        SectionResult result = results.get(name);
+                        if (result.body() != null) {
+                            sections.put(name, result.body());
+                        } else {
+                            failures.put(name, result.failure());
+                        }
+                    });
+                    return new DashboardResult(sections, failures);
+                });
+    }
+
+    private Mono<SectionResult> fetch(String name, DashboardProperties.Section section,
+                                      String userId, HttpHeaders requestHeaders) {
+        Duration timeout = section.getTimeout() != null ? section.getTimeout() : properties.getDefaultTimeout();
+        return webClient.get()
+                .uri(section.getUri(), Map.of("userId", userId))
+                .headers(headers -> IdentityHeaders.ALL.forEach(header -> {
+                    String value = requestHeaders.getFirst(header);
+                    if (value != null) {
+                        headers.set(header, value);
+                    }
+                }))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(body -> {
+                    record(name, "success");
+                    return new SectionResult(name, body, null);
+                })
+                .onErrorResume(e -> {
+                    String failure = describe(e);
+                    record(name, failure);
+                    log.debug("Dashboard section {} failed for user {}: {}", name, userId, e.getMessage());
+                    return Mono.just(new SectionResult(name, null, failure));
+                });
+    }
+
+    private void record(String section, String outcome) {
+        meterRegistry.counter("gateway.bff.sections", "section", section, "outcome", outcome).increment();
+    }
+
+    private static String describe(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (error instanceof WebClientResponseException response) {
+            return "status_" + response.getStatusCode().value();
+        }
+        return "unavailable";
+    }
+
+    private record SectionResult(String name, JsonNode body, String failure) {
+    }
+}
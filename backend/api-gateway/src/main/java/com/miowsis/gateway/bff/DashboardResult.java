@@ -0,0 +1,33 @@
+package com.miowsis.gateway.bff;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+// Sections are flattened into the top-level document next to the partial-result markers
+@Getter
+@RequiredArgsConstructor
+public class DashboardResult {
+
+    @JsonIgnore
+    private final Map<String, JsonNode> sections;
+    private final Map<String, String> failedSections;
+
+    @JsonAnyGetter
+    public Map<String, JsonNode> sectionBodies() {
+        return sections;
+    }
+
+    public boolean isPartial() {
+        return !failedSections.isEmpty();
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return sections.isEmpty();
+    }
+}
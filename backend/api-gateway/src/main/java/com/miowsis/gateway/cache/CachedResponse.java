@@ -0,0 +1,25 @@
+package com.miowsis.gateway.cache;
+
+import java.util.List;
+import java.util.Map;
+
+public record CachedResponse(
+        int status,
+        Map<String, List<String>> headers,
+        byte[] body,
+        String etag,
+        long storedAt,
+        long expiresAt
+) {
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+    public long ageSeconds() {
+        return Math.max(0, (System.currentTimeMillis() - storedAt) / 1000);
+    }
+
+    public long remainingSeconds() {
+        return Math.max(0, (expiresAt - System.currentTimeMillis()) / 1000);
+    }
+}
@@ -0,0 +1,35 @@
+package com.miowsis.gateway.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small bounded LRU map; critical sections are a single hash lookup so a plain monitor is fine on event-loop threads
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+
+    public LruCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.miowsis.gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miowsis.gateway.config.ResponseCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Two-tier response store: a per-node LRU in front of an optional Redis tier shared by all gateway
+// nodes. Redis failures degrade to memory-only caching rather than failing the request.
+@Component
+@Slf4j
+public class ResponseCacheStore {
+
+    private final ResponseCacheProperties properties;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LruCache<String, CachedResponse> memory;
+
+    public ResponseCacheStore(ResponseCacheProperties properties,
+                              ReactiveStringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.memory = new LruCache<>(properties.getMemoryMaxEntries());
+    }
+
+    public Mono<CachedResponse> get(String key) {
+        CachedResponse cached = memory.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return Mono.just(cached);
+            }
+            memory.remove(key);
+        }
+        if (!properties.getRedisEnabled()) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().get(properties.getRedisKeyPrefix() + key)
+                .flatMap(json -> Mono.justOrEmpty(deserialize(json)))
+                .filter(response -> !response.isExpired())
+                .doOnNext(response -> memory.put(key, response))
+                .onErrorResume(e -> {
+                    log.warn("Response cache read from Redis failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public void put(String key, CachedResponse response) {
+        memory.put(key, response);
+        if (!properties.getRedisEnabled()) {
+            return;
+        }
+        String json = serialize(response);
+        if (json == null) {
+            return;
+        }
+        Duration ttl = Duration.ofMillis(response.expiresAt() - System.currentTimeMillis());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        redisTemplate.opsForValue().set(properties.getRedisKeyPrefix() + key, json, ttl)
+                .subscribe(stored -> { }, e -> log.warn("Response cache write to Redis failed: {}", e.getMessage()));
+    }
+
+    public int maxBodySize() {
+        return properties.getMaxBodySize();
+    }
+
+    private String serialize(CachedResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private CachedResponse deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, CachedResponse.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable cached response: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.miowsis.gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.bff.dashboard")
+@Getter
+@Setter
+public class DashboardProperties {
+    private Duration defaultTimeout = Duration.ofMillis(500);
+    // Section name in the composite document -> load-balanced downstream call
+    private Map<String, Section> sections = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Section {
+        // http://SERVICE-NAME/... with a {userId} placeholder
+        private String uri;
+        private Duration timeout;
+    }
+}
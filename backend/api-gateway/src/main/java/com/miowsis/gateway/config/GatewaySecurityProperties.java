@@ -0,0 +1,25 @@
+package com.miowsis.gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.security")
+@Getter
+@Setter
+public class GatewaySecurityProperties {
+    private List<String> publicPaths = new ArrayList<>(List.of(
+            "/api/users/auth/**",
+            "/actuator/health/**",
+            "/actuator/info"
+    ));
+    private Integer tokenCacheSize = 100_000;
+    private String identitySigningSecret;
+    // Addresses or CIDR ranges of the proxies whose X-Real-IP header is believed, e.g. the nginx in front
+    private List<String> trustedProxies = new ArrayList<>();
+}
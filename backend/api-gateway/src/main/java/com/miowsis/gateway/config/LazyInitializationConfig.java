@@ -0,0 +1,16 @@
+package com.miowsis.gateway.config;
+
+import com.miowsis.gateway.ratelimit.LocalTokenBucketRateLimiter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // Its cluster sync is a @Scheduled method, which a lazily created bean would never register
+    @Bean
+    public static LazyInitializationExcludeFilter eagerRateLimiter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(LocalTokenBucketRateLimiter.class);
+    }
+}
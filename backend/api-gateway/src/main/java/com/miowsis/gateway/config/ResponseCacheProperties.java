@@ -0,0 +1,18 @@
+package com.miowsis.gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.response-cache")
+@Getter
+@Setter
+public class ResponseCacheProperties {
+    private Integer memoryMaxEntries = 10_000;
+    private Integer maxBodySize = 512 * 1024;
+    // Shares cached responses between gateway nodes
+    private Boolean redisEnabled = false;
+    private String redisKeyPrefix = "gateway:response-cache:";
+}
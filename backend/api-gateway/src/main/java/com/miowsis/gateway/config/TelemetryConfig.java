@@ -0,0 +1,22 @@
+package com.miowsis.gateway.config;
+
+import com.miowsis.gateway.telemetry.GatewayTelemetry;
+import com.miowsis.gateway.telemetry.TimedFilteringWebHandler;
+import org.springframework.cloud.gateway.filter.FilteringWebHandler;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+@Configuration
+public class TelemetryConfig {
+
+    // Primary so the route handler mapping dispatches through the timed chain
+    @Bean
+    @Primary
+    public FilteringWebHandler timedFilteringWebHandler(List<GlobalFilter> globalFilters, GatewayTelemetry telemetry) {
+        return new TimedFilteringWebHandler(globalFilters, telemetry);
+    }
+}
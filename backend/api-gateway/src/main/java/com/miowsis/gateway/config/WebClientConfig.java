@@ -0,0 +1,19 @@
+package com.miowsis.gateway.config;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class WebClientConfig {
+
+    // Resolves http://SERVICE-NAME URIs through Eureka, like lb:// routes. The in-memory limit only
+    // applies to decoded bodies (dashboard fan-out); proxied responses are streamed as DataBuffers
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(2 * 1024 * 1024));
+    }
+}
@@ -0,0 +1,39 @@
+package com.miowsis.gateway.controller;
+
+import com.miowsis.common.security.IdentityHeaders;
+import com.miowsis.gateway.bff.DashboardAggregator;
+import com.miowsis.gateway.bff.DashboardResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Reached through the "dashboard" route's forward: URI so the JWT and rate limiting filters run first
+@RestController
+@RequiredArgsConstructor
+public class DashboardController {
+
+    private final DashboardAggregator aggregator;
+
+    @GetMapping("/bff/dashboard")
+    public Mono<ResponseEntity<DashboardResult>> dashboard(ServerWebExchange exchange) {
+        // Direct calls bypass the gateway filters, so only trust identity set on a routed exchange
+        if (exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR) == null) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        String userId = exchange.getRequest().getHeaders().getFirst(IdentityHeaders.USER_ID);
+        if (!StringUtils.hasText(userId)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        return aggregator.aggregate(userId, exchange.getRequest().getHeaders())
+                .map(result -> result.isEmpty()
+                        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result)
+                        : ResponseEntity.ok(result));
+    }
+}
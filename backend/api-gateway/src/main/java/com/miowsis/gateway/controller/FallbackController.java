@@ -0,0 +1,25 @@
+package com.miowsis.gateway.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+// Target of the per-route circuit breakers' fallbackUri
+@RestController
+@RequestMapping("/fallback")
+public class FallbackController {
+
+    @RequestMapping("/{service}")
+    public Mono<ResponseEntity<Map<String, String>>> fallback(@PathVariable String service) {
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "10")
+                .body(Map.of(
+                        "error", "Service temporarily unavailable",
+                        "service", service)));
+    }
+}
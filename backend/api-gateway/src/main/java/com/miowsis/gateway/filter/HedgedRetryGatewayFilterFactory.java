@@ -0,0 +1,259 @@
+package com.miowsis.gateway.filter;
+
+import com.miowsis.gateway.resilience.LatencyTracker;
+import com.miowsis.gateway.resilience.RetryBudget;
+import com.miowsis.gateway.telemetry.GatewayTelemetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Proxies idempotent requests itself so it can retry and hedge them: a second copy is sent once the
+// first has been outstanding longer than the route's recent p95, and whichever answers first wins.
+// Both retries and hedges draw from a per-route budget, so a struggling backend never sees more than
+// budgetPercent extra load. Non-idempotent requests pass straight through to the normal routing filter.
+// Attempts race on response headers only: the winning body is streamed through unbuffered, so once the
+// first byte is forwarded the request is committed and is never retried or hedged.
+@Component
+public class HedgedRetryGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgedRetryGatewayFilterFactory.Config> {
+
+    // After the lb:// URL is resolved but before the load balancer and Netty routing filters
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpStatus.BAD_GATEWAY.value(), HttpStatus.SERVICE_UNAVAILABLE.value(), HttpStatus.GATEWAY_TIMEOUT.value());
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "host", "transfer-encoding", "upgrade", "te", "trailer", "proxy-authorization", "keep-alive");
+
+    // Error pages from retryable statuses are kept so the last one can be returned if retries run out
+    private static final int MAX_ERROR_BODY_SIZE = 64 * 1024;
+
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+    private final GatewayTelemetry telemetry;
+
+    public HedgedRetryGatewayFilterFactory(WebClient.Builder loadBalancedWebClientBuilder, MeterRegistry meterRegistry,
+                                           GatewayTelemetry telemetry) {
+        super(Config.class);
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.meterRegistry = meterRegistry;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        RetryBudget budget = new RetryBudget(config.getBudgetPercent(), config.getMinRetriesPerSecond(), config.getMaxBurst());
+        LatencyTracker latency = new LatencyTracker(config.getHedgeQuantile());
+        Counter retries = meterRegistry.counter("gateway.retry.attempts", "route", routeId, "type", "retry");
+        Counter hedges = meterRegistry.counter("gateway.retry.attempts", "route", routeId, "type", "hedge");
+        Counter exhausted = meterRegistry.counter("gateway.retry.budget.exhausted", "route", routeId);
+
+        GatewayFilter filter = (exchange, chain) -> {
+            budget.recordRequest();
+            ServerHttpRequest request = exchange.getRequest();
+            URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (!IDEMPOTENT_METHODS.contains(request.getMethod()) || url == null || ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+                return chain.filter(exchange);
+            }
+            URI target = toLoadBalancedUri(url);
+            long start = System.nanoTime();
+
+            Mono<ResponseEntity<Flux<DataBuffer>>> call = hedged(request, target, config, budget, latency, hedges)
+                    .retryWhen(Retry.backoff(config.getRetries(), config.getFirstBackoff())
+                            .filter(error -> isRetryable(error) && withdraw(budget, exhausted))
+                            .doBeforeRetry(signal -> retries.increment())
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .onErrorResume(RetryableResponse.class, error -> Mono.just(error.toEntity()));
+
+            // NettyRoutingFilter is skipped for these requests, so upstream latency is recorded here
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+            return call.flatMap(entity -> writeResponse(exchange, entity))
+                    .doFinally(signal -> telemetry.recordUpstream(routeId, target.getHost(), System.nanoTime() - start));
+        };
+        return new OrderedGatewayFilter(filter, ORDER);
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> hedged(ServerHttpRequest request, URI target, Config config,
+                                                          RetryBudget budget, LatencyTracker latency, Counter hedges) {
+        if (!config.isHedge()) {
+            return send(request, target, config, latency, new AtomicBoolean());
+        }
+        // Whichever attempt claims this first owns the response; a late one drains its body
+        AtomicBoolean claimed = new AtomicBoolean();
+        Mono<ResponseEntity<Flux<DataBuffer>>> primary = send(request, target, config, latency, claimed);
+        Mono<ResponseEntity<Flux<DataBuffer>>> backup = Mono.delay(hedgeDelay(config, latency))
+                .filter(tick -> budget.tryWithdraw())
+                .flatMap(tick -> {
+                    hedges.increment();
+                    return send(request, target, config, latency, claimed);
+                });
+        // Retryable statuses arrive as errors, so a fast 502 from one attempt does not beat the other;
+        // if the hedge is not sent (no budget) firstWithValue simply waits on the primary
+        return Mono.firstWithValue(primary, backup)
+                .onErrorMap(error -> error.getSuppressed().length > 0 ? error.getSuppressed()[0] : error);
+    }
+
+    // Emits as soon as response headers arrive, with the body left unread for the caller to stream
+    private Mono<ResponseEntity<Flux<DataBuffer>>> send(ServerHttpRequest request, URI target, Config config,
+                                                        LatencyTracker latency, AtomicBoolean claimed) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.method(request.getMethod())
+                    .uri(target)
+                    .headers(headers -> request.getHeaders().forEach((name, values) -> {
+                        if (!isHopByHop(name)) {
+                            headers.addAll(name, values);
+                        }
+                    }))
+                    .retrieve()
+                    // Every status is relayed as-is; retryable ones are turned into errors below
+                    .onStatus(status -> true, response -> Mono.empty())
+                    .toEntityFlux(DataBuffer.class)
+                    .timeout(config.getAttemptTimeout())
+                    .doOnNext(entity -> latency.record(System.nanoTime() - start))
+                    .flatMap(entity -> {
+                        if (RETRYABLE_STATUSES.contains(entity.getStatusCode().value())) {
+                            return RetryableResponse.from(entity).flatMap(Mono::error);
+                        }
+                        if (!claimed.compareAndSet(false, true)) {
+                            return drain(entity.getBody()).then(Mono.empty());
+                        }
+                        return Mono.just(entity);
+                    });
+        });
+    }
+
+    private static Duration hedgeDelay(Config config, LatencyTracker latency) {
+        Duration estimate = latency.percentile();
+        if (estimate == null || estimate.compareTo(config.getMaxHedgeDelay()) > 0) {
+            return config.getMaxHedgeDelay();
+        }
+        return estimate.compareTo(config.getMinHedgeDelay()) < 0 ? config.getMinHedgeDelay() : estimate;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        return error instanceof RetryableResponse
+                || error instanceof TimeoutException
+                || error instanceof IOException
+                || error.getCause() instanceof IOException;
+    }
+
+    private static boolean isHopByHop(String header) {
+        return HOP_BY_HOP_HEADERS.contains(header.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean withdraw(RetryBudget budget, Counter exhausted) {
+        if (budget.tryWithdraw()) {
+            return true;
+        }
+        exhausted.increment();
+        return false;
+    }
+
+    private static Mono<Void> writeResponse(ServerWebExchange exchange, ResponseEntity<Flux<DataBuffer>> entity) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(entity.getStatusCode());
+        entity.getHeaders().forEach((name, values) -> {
+            if (!isHopByHop(name)) {
+                response.getHeaders().put(name, values);
+            }
+        });
+        return entity.getBody() == null ? response.setComplete() : response.writeWith(entity.getBody());
+    }
+
+    private static Mono<Void> drain(Flux<DataBuffer> body) {
+        return body == null ? Mono.empty() : body.doOnNext(DataBufferUtils::release).then();
+    }
+
+    // lb://SERVICE/path is resolved by the load-balanced WebClient from http://SERVICE/path, so each
+    // attempt (including a hedge) can land on a different instance
+    private static URI toLoadBalancedUri(URI url) {
+        if (!"lb".equals(url.getScheme())) {
+            return url;
+        }
+        return UriComponentsBuilder.fromUri(url).scheme("http").build(true).toUri();
+    }
+
+    private static final class RetryableResponse extends RuntimeException {
+        private final transient ResponseEntity<byte[]> entity;
+
+        private RetryableResponse(ResponseEntity<byte[]> entity) {
+            super("Retryable upstream status " + entity.getStatusCode().value(), null, false, false);
+            this.entity = entity;
+        }
+
+        // Reads the (small) error body so the connection is released; an oversized one is dropped
+        private static Mono<RetryableResponse> from(ResponseEntity<Flux<DataBuffer>> entity) {
+            Mono<byte[]> body = entity.getBody() == null ? Mono.empty() : DataBufferUtils
+                    .join(entity.getBody(), MAX_ERROR_BODY_SIZE)
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .onErrorResume(error -> Mono.empty());
+            return body.defaultIfEmpty(new byte[0])
+                    .map(bytes -> new RetryableResponse(new ResponseEntity<>(bytes, entity.getHeaders(), entity.getStatusCode())));
+        }
+
+        private ResponseEntity<Flux<DataBuffer>> toEntity() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(entity.getHeaders());
+            byte[] body = entity.getBody();
+            headers.setContentLength(body.length);
+            Flux<DataBuffer> buffers = body.length == 0 ? Flux.empty()
+                    : Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+            return new ResponseEntity<>(buffers, headers, entity.getStatusCode());
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private int retries = 2;
+        private Duration firstBackoff = Duration.ofMillis(20);
+        private Duration attemptTimeout = Duration.ofSeconds(5);
+        // Extra attempts allowed as a share of recent requests, with a floor for quiet routes
+        private double budgetPercent = 10;
+        private int minRetriesPerSecond = 5;
+        private int maxBurst = 50;
+        private boolean hedge = true;
+        private double hedgeQuantile = 0.95;
+        private Duration minHedgeDelay = Duration.ofMillis(10);
+        private Duration maxHedgeDelay = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.miowsis.gateway.filter;
+
+import com.miowsis.common.security.IdentityHeaders;
+import com.miowsis.gateway.config.GatewaySecurityProperties;
+import com.miowsis.gateway.security.JwtVerifier;
+import com.miowsis.gateway.security.VerifiedIdentity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+    // Ahead of rate limiting so limiter keys can use the verified user id
+    public static final int ORDER = -200;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final GatewaySecurityProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        boolean publicPath = isPublic(request.getPath().value());
+
+        Optional<VerifiedIdentity> identity = Optional.ofNullable(bearerToken(request))
+                .flatMap(jwtVerifier::verify);
+        if (identity.isEmpty() && !publicPath) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return exchange.getResponse().setComplete();
+        }
+
+        ServerHttpRequest mutated = request.mutate()
+                .headers(headers -> {
+                    // Never pass through identity headers supplied by the caller
+                    IdentityHeaders.ALL.forEach(headers::remove);
+                    identity.ifPresent(verified -> {
+                        headers.set(IdentityHeaders.USER_ID, verified.userId());
+                        headers.set(IdentityHeaders.USER_EMAIL, verified.email());
+                        headers.set(IdentityHeaders.USER_ROLES, String.join(",", verified.roles()));
+                        headers.set(IdentityHeaders.EXPIRES_AT, Long.toString(verified.expiresAt().getEpochSecond()));
+                        headers.set(IdentityHeaders.SIGNATURE, verified.signature());
+                    });
+                })
+                .build();
+
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private boolean isPublic(String path) {
+        return properties.getPublicPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private static String bearerToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            return header.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,290 @@
+package com.miowsis.gateway.filter;
+
+import com.miowsis.common.security.IdentityHeaders;
+import com.miowsis.gateway.cache.CachedResponse;
+import com.miowsis.gateway.cache.ResponseCacheStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+// Caches GET responses of read-mostly routes. Upstream Cache-Control wins when present (no-store,
+// private, no-cache and max-age/s-maxage are honored); otherwise the route's ttl applies. Every
+// cached entry carries an ETag so clients revalidating with If-None-Match get a bodiless 304.
+// The route filter only decorates the response; ResponseCacheLookupFilter serves hits once the
+// request has passed the rate limiter, so a cached response never skips throttling.
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    // Must decorate the response before NettyWriteResponseFilter captures it
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    // The lookup this route filter hands to ResponseCacheLookupFilter
+    static final String LOOKUP_ATTR = ResponseCacheGatewayFilterFactory.class.getName() + ".lookup";
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    private static final List<String> UNCACHED_HEADERS = List.of(
+            HttpHeaders.SET_COOKIE, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.DATE);
+
+    private final ResponseCacheStore store;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        Counter hits = counter(routeId, "hit");
+        Counter misses = counter(routeId, "miss");
+        Counter notModified = counter(routeId, "not_modified");
+        Counter bypassed = counter(routeId, "bypass");
+
+        GatewayFilter filter = (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String key = cacheKey(routeId, request, config);
+            if (key == null) {
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+
+            // Hits are written past the caching decorator so they are not stored again
+            ServerHttpResponse response = exchange.getResponse();
+            GatewayFilter lookup = (limited, next) -> {
+                // A client asking to revalidate skips the lookup but still refreshes the entry
+                Mono<CachedResponse> cachedResponse = hasDirective(request.getHeaders().getCacheControl(), "no-cache")
+                        ? Mono.empty()
+                        : store.get(key);
+
+                return cachedResponse
+                        .flatMap(cached -> {
+                            if (matchesEtag(request, cached.etag())) {
+                                notModified.increment();
+                                return writeNotModified(response, cached);
+                            }
+                            hits.increment();
+                            return writeCached(response, cached);
+                        })
+                        .switchIfEmpty(Mono.defer(() -> {
+                            misses.increment();
+                            return next.filter(limited);
+                        }));
+            };
+            exchange.getAttributes().put(LOOKUP_ATTR, lookup);
+
+            return chain.filter(exchange.mutate()
+                    .response(new CachingResponse(response, key, config))
+                    .build());
+        };
+        return new OrderedGatewayFilter(filter, ORDER);
+    }
+
+    // Route, path and sorted query; user-specific routes also key on the verified user id
+    private String cacheKey(String routeId, ServerHttpRequest request, Config config) {
+        if (request.getMethod() != HttpMethod.GET) {
+            return null;
+        }
+        String path = request.getPath().value();
+        if (!config.getPaths().isEmpty()
+                && config.getPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(routeId).append(':').append(path);
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        new TreeMap<>(request.getQueryParams()).forEach((name, values) -> {
+            // Field selection is applied on the way out, so it must not fragment the cache
+            if (!SparseFieldsetFilter.FIELDS_PARAM.equals(name)) {
+                values.forEach(value -> query.add(name + "=" + value));
+            }
+        });
+        key.append(query);
+
+        if (config.isPerUser()) {
+            String userId = request.getHeaders().getFirst(IdentityHeaders.USER_ID);
+            if (!StringUtils.hasText(userId)) {
+                return null;
+            }
+            key.append('#').append(userId);
+        }
+        return key.toString();
+    }
+
+    private static boolean matchesEtag(ServerHttpRequest request, String etag) {
+        List<String> candidates = request.getHeaders().getIfNoneMatch();
+        return etag != null && (candidates.contains(etag) || candidates.contains("*"));
+    }
+
+    private static Mono<Void> writeNotModified(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().setETag(cached.etag());
+        copyCacheControl(cached, response.getHeaders());
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+        return response.setComplete();
+    }
+
+    private static Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        cached.headers().forEach((name, values) -> response.getHeaders().put(name, values));
+        response.getHeaders().set(HttpHeaders.AGE, Long.toString(cached.ageSeconds()));
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static void copyCacheControl(CachedResponse cached, HttpHeaders headers) {
+        List<String> cacheControl = cached.headers().get(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl != null) {
+            headers.put(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains(directive);
+    }
+
+    // Freshness lifetime allowed by upstream headers, or null when the response must not be stored
+    private static Duration freshness(HttpHeaders headers, Config config) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return config.getTtl();
+        }
+
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String trimmed = directive.trim();
+            if (trimmed.equals("no-store") || trimmed.equals("no-cache")
+                    || (trimmed.equals("private") && !config.isPerUser())) {
+                return null;
+            }
+            if (trimmed.startsWith("s-maxage=")) {
+                sharedMaxAge = seconds(trimmed.substring("s-maxage=".length()));
+            } else if (trimmed.startsWith("max-age=")) {
+                maxAge = seconds(trimmed.substring("max-age=".length()));
+            }
+        }
+        Duration lifetime = sharedMaxAge != null ? sharedMaxAge : maxAge != null ? maxAge : config.getTtl();
+        return lifetime == null || lifetime.isZero() || lifetime.isNegative() ? null : lifetime;
+    }
+
+    private static Duration seconds(String value) {
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Counter counter(String routeId, String result) {
+        return meterRegistry.counter("gateway.cache.requests", "route", routeId, "result", result);
+    }
+
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Config config;
+
+        private CachingResponse(ServerHttpResponse delegate, String key, Config config) {
+            super(delegate);
+            this.key = key;
+            this.config = config;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            Duration lifetime = isStorable(headers) ? freshness(headers, config) : null;
+            if (lifetime == null) {
+                headers.set(CACHE_STATUS_HEADER, "BYPASS");
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                if (bytes.length <= store.maxBodySize()) {
+                    if (headers.getETag() == null) {
+                        headers.setETag("\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+                    }
+                    long now = System.currentTimeMillis();
+                    store.put(key, new CachedResponse(getStatusCode().value(), cacheableHeaders(headers),
+                            bytes, headers.getETag(), now, now + lifetime.toMillis()));
+                }
+                headers.set(CACHE_STATUS_HEADER, "MISS");
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private boolean isStorable(HttpHeaders headers) {
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value()) {
+                return false;
+            }
+            if (headers.containsKey(HttpHeaders.SET_COOKIE) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            long contentLength = headers.getContentLength();
+            if (contentLength > store.maxBodySize()) {
+                return false;
+            }
+            List<String> vary = headers.getVary();
+            return vary.isEmpty() || vary.stream().allMatch(HttpHeaders.ACCEPT_ENCODING::equalsIgnoreCase);
+        }
+
+        private Map<String, List<String>> cacheableHeaders(HttpHeaders headers) {
+            Map<String, List<String>> copy = new LinkedHashMap<>();
+            headers.forEach((name, values) -> {
+                if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)
+                        && !CACHE_STATUS_HEADER.equalsIgnoreCase(name)) {
+                    copy.put(name, new ArrayList<>(values));
+                }
+            });
+            return copy;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        // Used when the upstream sends no Cache-Control
+        private Duration ttl = Duration.ofMinutes(1);
+        // Ant patterns limiting which request paths are cached; empty caches every GET on the route
+        private List<String> paths = new ArrayList<>();
+        private boolean perUser = false;
+    }
+}
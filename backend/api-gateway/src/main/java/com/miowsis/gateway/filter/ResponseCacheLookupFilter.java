@@ -0,0 +1,31 @@
+package com.miowsis.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Serves response cache hits for routes with a ResponseCache filter. Runs after the RequestRateLimiter
+// so throttled clients get 429 whether or not the response is cached.
+@Component
+public class ResponseCacheLookupFilter implements GlobalFilter, Ordered {
+
+    // Route and default filters without an explicit order run at their position in the definition,
+    // counting from 1, and ties go to global filters. The RequestRateLimiter is the first default
+    // filter (order 1), so 2 puts the lookup right after it and ahead of the route's circuit breaker.
+    public static final int ORDER = 2;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GatewayFilter lookup = exchange.getAttribute(ResponseCacheGatewayFilterFactory.LOOKUP_ATTR);
+        return lookup != null ? lookup.filter(exchange, chain) : chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,157 @@
+package com.miowsis.gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Prunes JSON responses to the fields named in ?fields=, e.g.
+// fields=totalValue,holdings.symbol,holdings.marketValue. Nested paths apply to every element of an
+// array, and naming a field without children keeps its whole subtree.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SparseFieldsetFilter implements GlobalFilter, Ordered {
+
+    public static final String FIELDS_PARAM = "fields";
+    // Outside the response cache so one cached entry serves every field selection
+    public static final int ORDER = ResponseCacheGatewayFilterFactory.ORDER - 1;
+    private static final int MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String fields = exchange.getRequest().getQueryParams().getFirst(FIELDS_PARAM);
+        if (!StringUtils.hasText(fields)) {
+            return chain.filter(exchange);
+        }
+        FieldTree selection = FieldTree.parse(fields);
+        return chain.filter(exchange.mutate()
+                .response(new PruningResponse(exchange.getResponse(), selection))
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private final class PruningResponse extends ServerHttpResponseDecorator {
+
+        private final FieldTree selection;
+
+        private PruningResponse(ServerHttpResponse delegate, FieldTree selection) {
+            super(delegate);
+            this.selection = selection;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            MediaType contentType = headers.getContentType();
+            if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                    || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || headers.getContentLength() > MAX_BODY_SIZE) {
+                return super.writeWith(body);
+            }
+
+            // Content-Length is absent on chunked responses, so the limit is enforced while reading: buffers
+            // are held until the body either completes (pruned) or passes the limit (forwarded untouched)
+            AtomicLong received = new AtomicLong();
+            Flux<List<DataBuffer>> chunks = Flux.from(body).cast(DataBuffer.class)
+                    .bufferUntil(buffer -> received.addAndGet(buffer.readableByteCount()) > MAX_BODY_SIZE);
+            return super.writeWith(chunks.switchOnFirst((first, all) -> received.get() > MAX_BODY_SIZE
+                    ? all.concatMapIterable(buffers -> buffers)
+                    : all.map(this::prune)));
+        }
+
+        private DataBuffer prune(List<DataBuffer> buffers) {
+            DataBuffer joined = bufferFactory().join(buffers);
+            byte[] bytes = new byte[joined.readableByteCount()];
+            joined.read(bytes);
+            DataBufferUtils.release(joined);
+
+            byte[] pruned = prune(bytes);
+            if (pruned != bytes) {
+                // The representation changed, so the upstream validator no longer describes it
+                getHeaders().remove(HttpHeaders.ETAG);
+                getHeaders().setContentLength(pruned.length);
+            }
+            return bufferFactory().wrap(pruned);
+        }
+
+        private byte[] prune(byte[] json) {
+            try {
+                JsonNode root = objectMapper.readTree(json);
+                selection.apply(root);
+                return objectMapper.writeValueAsBytes(root);
+            } catch (IOException e) {
+                log.debug("Returning unpruned response, body is not valid JSON: {}", e.getMessage());
+                return json;
+            }
+        }
+    }
+
+    private static final class FieldTree {
+
+        private final Map<String, FieldTree> children = new LinkedHashMap<>();
+
+        static FieldTree parse(String fields) {
+            FieldTree root = new FieldTree();
+            for (String path : fields.split(",")) {
+                FieldTree node = root;
+                for (String name : path.trim().split("\\.")) {
+                    if (!name.isEmpty()) {
+                        node = node.children.computeIfAbsent(name, key -> new FieldTree());
+                    }
+                }
+            }
+            return root;
+        }
+
+        void apply(JsonNode node) {
+            if (children.isEmpty()) {
+                return;
+            }
+            if (node instanceof ArrayNode array) {
+                array.forEach(this::apply);
+            } else if (node instanceof ObjectNode object) {
+                Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    FieldTree child = children.get(field.getKey());
+                    if (child == null) {
+                        fields.remove();
+                    } else {
+                        child.apply(field.getValue());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.miowsis.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Admits requests from per-node token buckets with no network round trip, then reconciles
+// consumption with the rest of the cluster through Redis in the background. Cluster-wide
+// rates hold to within one sync interval of the configured replenishRate/burstCapacity.
+@Component
+@Primary
+@Slf4j
+public class LocalTokenBucketRateLimiter extends AbstractRateLimiter<LocalTokenBucketRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    private static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    private static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+    private static final String REDIS_KEY_PREFIX = "rate-limit:";
+    private static final Duration WINDOW_KEY_TTL = Duration.ofSeconds(5);
+    private static final long IDLE_EVICTION_NANOS = Duration.ofMinutes(5).toNanos();
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration syncTimeout;
+    private final Config defaultConfig;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // route id -> request counter, one map per outcome
+    private final Map<String, Counter> allowedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> deniedCounters = new ConcurrentHashMap<>();
+
+    public LocalTokenBucketRateLimiter(ConfigurationService configurationService,
+                                       ReactiveStringRedisTemplate redisTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${gateway.rate-limiter.default-replenish-rate:10}") int replenishRate,
+                                       @Value("${gateway.rate-limiter.default-burst-capacity:20}") int burstCapacity,
+                                       @Value("${gateway.rate-limiter.sync-timeout:1s}") Duration syncTimeout) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.syncTimeout = syncTimeout;
+        this.defaultConfig = new Config();
+        this.defaultConfig.setReplenishRate(replenishRate);
+        this.defaultConfig.setBurstCapacity(burstCapacity);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long now = System.nanoTime();
+
+        TokenBucket bucket = bucketFor(routeId + ":" + id, config, now);
+        long remaining = bucket.tryAcquire(now, config.getRequestedTokens());
+        boolean allowed = remaining >= 0;
+
+        (allowed ? allowedCounters : deniedCounters)
+                .computeIfAbsent(routeId, route -> requestCounter(route, allowed ? "allowed" : "denied"))
+                .increment();
+
+        return Mono.just(new Response(allowed, Map.of(
+                REMAINING_HEADER, Long.toString(Math.max(remaining, 0)),
+                REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()))));
+    }
+
+    // Pushes local consumption to Redis in one pipelined batch and debits what other nodes used
+    @Scheduled(fixedDelayString = "${gateway.rate-limiter.sync-interval-ms:250}")
+    public void syncWithCluster() {
+        long now = System.nanoTime();
+        long window = System.currentTimeMillis() / 1000;
+        List<Mono<Void>> updates = new ArrayList<>();
+
+        buckets.forEach((key, bucket) -> {
+            if (bucket.isIdleSince(now - IDLE_EVICTION_NANOS)) {
+                buckets.remove(key, bucket);
+                return;
+            }
+            if (bucket.syncWindow != window) {
+                bucket.syncWindow = window;
+                bucket.localInWindow = 0;
+                bucket.remoteInWindow = 0;
+            }
+
+            long consumed = bucket.drainUnsynced();
+            if (consumed == 0) {
+                return;
+            }
+            bucket.localInWindow += consumed;
+
+            String redisKey = REDIS_KEY_PREFIX + key + ":" + window;
+            updates.add(redisTemplate.opsForValue().increment(redisKey, consumed)
+                    .flatMap(total -> total == consumed
+                            ? redisTemplate.expire(redisKey, WINDOW_KEY_TTL).thenReturn(total)
+                            : Mono.just(total))
+                    .doOnNext(total -> {
+                        long remote = total - bucket.localInWindow;
+                        if (remote > bucket.remoteInWindow) {
+                            bucket.debit(System.nanoTime(), remote - bucket.remoteInWindow);
+                            bucket.remoteInWindow = remote;
+                        }
+                    })
+                    .then());
+        });
+
+        if (updates.isEmpty()) {
+            return;
+        }
+        try {
+            Flux.merge(updates).then().block(syncTimeout);
+        } catch (RuntimeException e) {
+            // Keep limiting locally; the next sync catches up once Redis is reachable
+            log.warn("Rate limiter cluster sync failed: {}", e.getMessage());
+            meterRegistry.counter("gateway.ratelimiter.sync.failures").increment();
+        }
+    }
+
+    private Counter requestCounter(String routeId, String outcome) {
+        return meterRegistry.counter("gateway.ratelimiter.requests", "route", routeId, "outcome", outcome);
+    }
+
+    private TokenBucket bucketFor(String key, Config config, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null && bucket.hasSettings(config.getReplenishRate(), config.getBurstCapacity())) {
+            return bucket;
+        }
+        TokenBucket created = new TokenBucket(config.getReplenishRate(), config.getBurstCapacity(), now);
+        if (bucket == null) {
+            TokenBucket existing = buckets.putIfAbsent(key, created);
+            return existing != null ? existing : created;
+        }
+        // Route settings changed on refresh
+        buckets.put(key, created);
+        return created;
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private int replenishRate = 10;
+        private int burstCapacity = 20;
+        private int requestedTokens = 1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.miowsis.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token bucket expressed as GCRA: the whole bucket state is one "theoretical arrival time",
+// so admission is a single CAS with no locks. Times are in nanoseconds.
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final int burstCapacity;
+    private final long capacityNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder unsynced = new LongAdder();
+    private volatile long lastAccess;
+
+    // Cluster sync bookkeeping, only touched by the sync task
+    long syncWindow;
+    long localInWindow;
+    long remoteInWindow;
+
+    TokenBucket(int replenishRate, int burstCapacity, long now) {
+        this.intervalNanos = 1_000_000_000L / Math.max(1, replenishRate);
+        this.burstCapacity = burstCapacity;
+        this.capacityNanos = intervalNanos * burstCapacity;
+        this.lastAccess = now;
+    }
+
+    boolean hasSettings(int replenishRate, int burstCapacity) {
+        return this.intervalNanos == 1_000_000_000L / Math.max(1, replenishRate)
+                && this.burstCapacity == burstCapacity;
+    }
+
+    // Remaining tokens after taking the requested amount, or -1 when the bucket cannot cover it
+    long tryAcquire(long now, int tokens) {
+        long increment = intervalNanos * tokens;
+        lastAccess = now;
+
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + increment;
+            if (next - now > capacityNanos) {
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                unsynced.add(tokens);
+                return (capacityNanos - (next - now)) / intervalNanos;
+            }
+        }
+    }
+
+    // Applies tokens spent on other nodes; never drains the bucket below empty
+    void debit(long now, long tokens) {
+        theoreticalArrival.updateAndGet(arrival ->
+                Math.min(Math.max(arrival, now) + intervalNanos * tokens, now + capacityNanos));
+    }
+
+    long drainUnsynced() {
+        return unsynced.sumThenReset();
+    }
+
+    boolean isIdleSince(long cutoff) {
+        return lastAccess < cutoff && unsynced.sum() == 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.miowsis.gateway.ratelimit;
+
+import com.miowsis.common.security.IdentityHeaders;
+import com.miowsis.gateway.config.GatewaySecurityProperties;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+// Keys on the verified user id set by JwtAuthenticationFilter, falling back to the client IP
+@Component("userOrIpKeyResolver")
+public class UserOrIpKeyResolver implements KeyResolver {
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public UserOrIpKeyResolver(GatewaySecurityProperties properties) {
+        this.trustedProxies = properties.getTrustedProxies().stream()
+                .filter(StringUtils::hasText)
+                .map(proxy -> new IpAddressMatcher(proxy.trim()))
+                .toList();
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        String userId = request.getHeaders().getFirst(IdentityHeaders.USER_ID);
+        if (StringUtils.hasText(userId)) {
+            return Mono.just("user:" + userId);
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return Mono.just("ip:unknown");
+        }
+        String remoteIp = remoteAddress.getAddress().getHostAddress();
+
+        // Only the proxies in front of the gateway set X-Real-IP; from anyone else it could be forged
+        String realIp = request.getHeaders().getFirst("X-Real-IP");
+        if (StringUtils.hasText(realIp) && isTrustedProxy(remoteIp)) {
+            return Mono.just("ip:" + realIp.trim());
+        }
+        return Mono.just("ip:" + remoteIp);
+    }
+
+    private boolean isTrustedProxy(String address) {
+        return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+    }
+}
@@ -0,0 +1,52 @@
+package com.miowsis.gateway.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rolling latency percentile over the most recent responses of a route. Samples go into a ring
+// buffer and the percentile is re-derived every few hundred requests, so reads are a volatile load.
+public class LatencyTracker {
+
+    private static final int SAMPLES = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+
+    private final double quantile;
+    private final long[] samples = new long[SAMPLES];
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private volatile long percentileNanos = -1;
+
+    public LatencyTracker(double quantile) {
+        this.quantile = quantile;
+    }
+
+    public void record(long nanos) {
+        long n = count.getAndIncrement();
+        samples[(int) (n % SAMPLES)] = nanos;
+        if ((n + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(n + 1);
+        }
+    }
+
+    // Null until enough samples have been seen to make the estimate meaningful
+    public Duration percentile() {
+        long nanos = percentileNanos;
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    private void recompute(long seen) {
+        if (!recomputing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int size = (int) Math.min(seen, SAMPLES);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            percentileNanos = sorted[Math.min(size - 1, (int) (quantile * size))];
+        } finally {
+            recomputing.set(false);
+        }
+    }
+}
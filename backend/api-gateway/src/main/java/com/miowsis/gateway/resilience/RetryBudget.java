@@ -0,0 +1,59 @@
+package com.miowsis.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Retries (and hedges) spend from a balance that every request tops up by a fraction of a token,
+// plus a small time-based floor so low-traffic routes can still retry. When a backend browns out
+// the balance drains and extra load is capped at budgetPercent of live traffic instead of multiplying it.
+public class RetryBudget {
+
+    // Balances are kept in thousandths of a token
+    private static final long TOKEN = 1000;
+    private static final long MIN_REFILL_INTERVAL_NANOS = 10_000_000L;
+
+    private final long depositPerRequest;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill;
+
+    public RetryBudget(double budgetPercent, int minRetriesPerSecond, int maxBurst) {
+        this.depositPerRequest = Math.round(budgetPercent / 100.0 * TOKEN);
+        this.refillPerSecond = minRetriesPerSecond * TOKEN;
+        this.maxBalance = Math.max(1, maxBurst) * TOKEN;
+        this.balance = new AtomicLong(maxBalance);
+        this.lastRefill = new AtomicLong(System.nanoTime());
+    }
+
+    public void recordRequest() {
+        deposit(depositPerRequest);
+    }
+
+    public boolean tryWithdraw() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefill.get();
+        long elapsed = now - last;
+        if (elapsed >= MIN_REFILL_INTERVAL_NANOS && lastRefill.compareAndSet(last, now)) {
+            deposit(refillPerSecond * elapsed / 1_000_000_000L);
+        }
+    }
+
+    private void deposit(long amount) {
+        if (amount > 0) {
+            balance.accumulateAndGet(amount, (current, added) -> Math.min(maxBalance, current + added));
+        }
+    }
+}
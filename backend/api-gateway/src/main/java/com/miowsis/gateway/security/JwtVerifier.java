@@ -0,0 +1,93 @@
+package com.miowsis.gateway.security;
+
+import com.miowsis.common.security.IdentitySigner;
+import com.miowsis.gateway.cache.LruCache;
+import com.miowsis.gateway.config.GatewaySecurityProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+@Slf4j
+public class JwtVerifier {
+
+    private final SecretKey signingKey;
+    private final IdentitySigner identitySigner;
+    // Keyed by token digest so raw bearer tokens never sit in the heap longer than the request
+    private final LruCache<String, VerifiedIdentity> verifiedTokens;
+
+    public JwtVerifier(@Value("${jwt.secret}") String jwtSecret, GatewaySecurityProperties properties) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        String identitySecret = StringUtils.hasText(properties.getIdentitySigningSecret())
+                ? properties.getIdentitySigningSecret()
+                : jwtSecret;
+        this.identitySigner = new IdentitySigner(identitySecret);
+        this.verifiedTokens = new LruCache<>(properties.getTokenCacheSize());
+    }
+
+    public Optional<VerifiedIdentity> verify(String token) {
+        String digest = digest(token);
+        VerifiedIdentity cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(digest);
+            return Optional.empty();
+        }
+
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(signingKey)
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            if (claims.getExpiration() == null || claims.get("userId") == null) {
+                log.debug("Rejected JWT without expiry or userId claim");
+                return Optional.empty();
+            }
+
+            VerifiedIdentity identity = toIdentity(claims);
+            verifiedTokens.put(digest, identity);
+            return Optional.of(identity);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private VerifiedIdentity toIdentity(Claims claims) {
+        String userId = String.valueOf(claims.get("userId"));
+        String email = claims.getSubject();
+        List<String> roles = claims.get("roles") instanceof Collection<?> values
+                ? values.stream().map(String::valueOf).toList()
+                : List.of();
+        Instant expiresAt = claims.getExpiration().toInstant();
+        return new VerifiedIdentity(userId, email, roles, expiresAt,
+                identitySigner.sign(userId, email, roles, expiresAt.getEpochSecond()));
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.miowsis.gateway.security;
+
+import java.time.Instant;
+import java.util.List;
+
+public record VerifiedIdentity(String userId, String email, List<String> roles, Instant expiresAt, String signature) {
+
+    public boolean isExpired() {
+        return Instant.now().isAfter(expiresAt);
+    }
+}
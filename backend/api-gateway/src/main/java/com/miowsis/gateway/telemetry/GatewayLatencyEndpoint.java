@@ -0,0 +1,85 @@
+package com.miowsis.gateway.telemetry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// /actuator/gateway-latency: per-route latency against the PRD SLOs, the filters and upstream
+// instances contributing to it, and the rate limiter and retry outcomes for each route. Not exposed
+// over HTTP by default; see management.endpoints.web.exposure in application.yml.
+@Component
+@Endpoint(id = "gateway-latency")
+@RequiredArgsConstructor
+public class GatewayLatencyEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("routes", timers(GatewayTelemetry.ROUTE_LATENCY, "route", "method", "outcome"));
+        summary.put("filters", timers(GatewayTelemetry.FILTER_LATENCY, "route", "filter"));
+        summary.put("upstreams", timers(GatewayTelemetry.UPSTREAM_LATENCY, "route", "instance"));
+        summary.put("rateLimiter", counters("gateway.ratelimiter.requests", "route", "outcome"));
+        summary.put("retries", counters("gateway.retry.attempts", "route", "type"));
+        summary.put("retryBudgetExhausted", counters("gateway.retry.budget.exhausted", "route"));
+        summary.put("cache", counters("gateway.cache.requests", "route", "result"));
+        return summary;
+    }
+
+    private List<Map<String, Object>> timers(String name, String... tags) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(name).timers()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String tag : tags) {
+                row.put(tag, timer.getId().getTag(tag));
+            }
+
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            row.put("count", snapshot.count());
+            row.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            row.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                row.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+            }
+
+            // Share of requests finishing within each SLO boundary
+            if (snapshot.count() > 0 && snapshot.histogramCounts().length > 0) {
+                Map<String, Double> withinSlo = new LinkedHashMap<>();
+                for (CountAtBucket bucket : snapshot.histogramCounts()) {
+                    withinSlo.put("<=" + Math.round(bucket.bucket(TimeUnit.MILLISECONDS)) + "ms",
+                            bucket.count() / snapshot.count());
+                }
+                row.put("withinSlo", withinSlo);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Map<String, Double> counters(String name, String... tags) {
+        Map<String, Double> totals = new TreeMap<>();
+        for (Counter counter : meterRegistry.find(name).counters()) {
+            List<String> key = new ArrayList<>(tags.length);
+            for (String tag : tags) {
+                key.add(counter.getId().getTag(tag));
+            }
+            totals.merge(String.join("/", key), counter.count(), Double::sum);
+        }
+        return totals;
+    }
+}
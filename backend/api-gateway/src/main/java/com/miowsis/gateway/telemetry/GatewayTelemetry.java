@@ -0,0 +1,75 @@
+package com.miowsis.gateway.telemetry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class GatewayTelemetry {
+
+    public static final String ROUTE_LATENCY = "gateway.route.latency";
+    public static final String FILTER_LATENCY = "gateway.filter.latency";
+    public static final String UPSTREAM_LATENCY = "gateway.upstream.latency";
+
+    // PRD targets: auth <50ms, portfolio queries <100ms, trades <300ms, complex operations <500ms
+    static final Duration[] SLO_BOUNDARIES = {
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(300), Duration.ofMillis(500)
+    };
+
+    private static final String UNKNOWN_ROUTE = "unrouted";
+
+    private final MeterRegistry meterRegistry;
+    // route -> filter / "method outcome" / instance -> timer, so the per-request path does not build meter ids
+    private final Map<String, Map<String, Timer>> filterTimers = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Timer>> routeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Timer>> upstreamTimers = new ConcurrentHashMap<>();
+
+    public GatewayTelemetry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordFilter(ServerWebExchange exchange, String filter, long nanos) {
+        String route = routeId(exchange);
+        filterTimers.computeIfAbsent(route, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(filter, key -> Timer.builder(FILTER_LATENCY)
+                        .tag("route", route)
+                        .tag("filter", filter)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRoute(String route, String method, String outcome, long nanos) {
+        routeTimers.computeIfAbsent(route, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method + " " + outcome, key -> Timer.builder(ROUTE_LATENCY)
+                        .tag("route", route)
+                        .tag("method", method)
+                        .tag("outcome", outcome)
+                        .serviceLevelObjectives(SLO_BOUNDARIES)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstream(String route, String instance, long nanos) {
+        upstreamTimers.computeIfAbsent(route, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instance, key -> Timer.builder(UPSTREAM_LATENCY)
+                        .tag("route", route)
+                        .tag("instance", instance)
+                        .serviceLevelObjectives(SLO_BOUNDARIES)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : UNKNOWN_ROUTE;
+    }
+}
@@ -0,0 +1,44 @@
+package com.miowsis.gateway.telemetry;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// End-to-end time spent in the gateway for a routed request, including every filter and the upstream call
+@Component
+@RequiredArgsConstructor
+public class RouteLatencyFilter implements GlobalFilter, Ordered, TelemetryFilter {
+
+    private final GatewayTelemetry telemetry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            telemetry.recordRoute(GatewayTelemetry.routeId(exchange),
+                    exchange.getRequest().getMethod().name(),
+                    outcome(status),
+                    System.nanoTime() - start);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status == null) {
+            return "UNKNOWN";
+        }
+        HttpStatus.Series series = HttpStatus.Series.resolve(status.value());
+        return series != null ? series.name() : "UNKNOWN";
+    }
+}
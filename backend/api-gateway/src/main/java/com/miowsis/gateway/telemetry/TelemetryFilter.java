@@ -0,0 +1,5 @@
+package com.miowsis.gateway.telemetry;
+
+// Marker for the filters that do the measuring, which are not themselves timed
+interface TelemetryFilter {
+}
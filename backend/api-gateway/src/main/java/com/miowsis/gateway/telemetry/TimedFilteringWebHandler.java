@@ -0,0 +1,104 @@
+package com.miowsis.gateway.telemetry;
+
+import org.springframework.cloud.gateway.filter.FilteringWebHandler;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every global and route filter per route. The filters are wrapped where the handler assembles
+// each request's chain, so the filter and filter factory beans themselves keep their own types.
+public class TimedFilteringWebHandler extends FilteringWebHandler {
+
+    private final GatewayTelemetry telemetry;
+    // route id -> the route as loaded and its timed copy; rebuilt when a refresh replaces the route
+    private final Map<String, TimedRoute> timedRoutes = new ConcurrentHashMap<>();
+
+    public TimedFilteringWebHandler(List<GlobalFilter> globalFilters, GatewayTelemetry telemetry) {
+        super(timed(globalFilters, telemetry));
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route != null) {
+            TimedRoute timed = timedRoutes.get(route.getId());
+            if (timed == null || timed.original() != route) {
+                timed = new TimedRoute(route, timed(route));
+                timedRoutes.put(route.getId(), timed);
+            }
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, timed.timed());
+        }
+        return super.handle(exchange);
+    }
+
+    private Route timed(Route route) {
+        List<GatewayFilter> filters = new ArrayList<>(route.getFilters().size());
+        for (GatewayFilter filter : route.getFilters()) {
+            filters.add(timed(filter));
+        }
+        return Route.async()
+                .id(route.getId())
+                .uri(route.getUri())
+                .order(route.getOrder())
+                .asyncPredicate(route.getPredicate())
+                .replaceFilters(filters)
+                .metadata(route.getMetadata())
+                .build();
+    }
+
+    // Keeps the filter's order; unordered filters take their position in the route definition
+    private GatewayFilter timed(GatewayFilter filter) {
+        if (filter instanceof OrderedGatewayFilter ordered) {
+            GatewayFilter delegate = ordered.getDelegate();
+            return new OrderedGatewayFilter(new TimedGatewayFilter(delegate, name(delegate), telemetry), ordered.getOrder());
+        }
+        if (filter instanceof Ordered ordered) {
+            return new OrderedGatewayFilter(new TimedGatewayFilter(filter, name(filter), telemetry), ordered.getOrder());
+        }
+        return new TimedGatewayFilter(filter, name(filter), telemetry);
+    }
+
+    private static List<GlobalFilter> timed(List<GlobalFilter> globalFilters, GatewayTelemetry telemetry) {
+        List<GlobalFilter> timed = new ArrayList<>(globalFilters.size());
+        for (GlobalFilter filter : globalFilters) {
+            if (filter instanceof TelemetryFilter) {
+                timed.add(filter);
+                continue;
+            }
+            int order = filter instanceof Ordered ordered
+                    ? ordered.getOrder()
+                    : OrderUtils.getOrder(filter.getClass(), Ordered.LOWEST_PRECEDENCE);
+            timed.add(new TimedGlobalFilter(filter, order, telemetry));
+        }
+        return timed;
+    }
+
+    // Route filters are anonymous classes or lambdas declared in their factory, e.g.
+    // RewritePathGatewayFilterFactory$1, so the factory's short name identifies them
+    private static String name(GatewayFilter filter) {
+        String name = filter.getClass().getName();
+        name = name.substring(name.lastIndexOf('.') + 1);
+        int nested = name.indexOf('$');
+        if (nested > 0) {
+            name = name.substring(0, nested);
+        }
+        return name.endsWith("GatewayFilterFactory")
+                ? name.substring(0, name.length() - "GatewayFilterFactory".length())
+                : name;
+    }
+
+    private record TimedRoute(Route original, Route timed) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.miowsis.gateway.telemetry;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+final class TimedGlobalFilter implements GlobalFilter, Ordered {
+
+    private final TimedGatewayFilter timed;
+    private final int order;
+
+    TimedGlobalFilter(GlobalFilter delegate, int order, GatewayTelemetry telemetry) {
+        this.timed = new TimedGatewayFilter(delegate::filter, delegate.getClass().getSimpleName(), telemetry);
+        this.order = order;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return timed.filter(exchange, chain);
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
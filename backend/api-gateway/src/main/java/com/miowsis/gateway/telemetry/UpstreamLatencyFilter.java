@@ -0,0 +1,40 @@
+package com.miowsis.gateway.telemetry;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+// Time from handing the request to the routing filter until the response completes, tagged with the
+// instance the load balancer picked, so one slow replica stands out from the rest of its service
+@Component
+@RequiredArgsConstructor
+public class UpstreamLatencyFilter implements GlobalFilter, Ordered, TelemetryFilter {
+
+    private final GatewayTelemetry telemetry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            String instance = url != null && url.getHost() != null ? url.getHost() + ":" + url.getPort() : "local";
+            telemetry.recordUpstream(GatewayTelemetry.routeId(exchange), instance, System.nanoTime() - start);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
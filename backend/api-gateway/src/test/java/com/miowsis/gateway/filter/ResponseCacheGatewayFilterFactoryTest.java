@@ -0,0 +1,93 @@
+package com.miowsis.gateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miowsis.gateway.cache.ResponseCacheStore;
+import com.miowsis.gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.FilteringWebHandler;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filter_shouldRateLimitRequestsForCachedResponses() {
+        RateLimiter<Object> rateLimiter = mock(RateLimiter.class);
+        when(rateLimiter.isAllowed(anyString(), anyString())).thenReturn(
+                Mono.just(new RateLimiter.Response(true, Map.of())),
+                Mono.just(new RateLimiter.Response(true, Map.of())),
+                Mono.just(new RateLimiter.Response(false, Map.of())));
+        RequestRateLimiterGatewayFilterFactory rateLimiterFactory =
+                new RequestRateLimiterGatewayFilterFactory(rateLimiter, exchange -> Mono.just("ip:203.0.113.7"));
+
+        ResponseCacheGatewayFilterFactory cacheFactory = new ResponseCacheGatewayFilterFactory(
+                new ResponseCacheStore(new ResponseCacheProperties(), null, new ObjectMapper()),
+                new SimpleMeterRegistry());
+        ResponseCacheGatewayFilterFactory.Config cacheConfig = new ResponseCacheGatewayFilterFactory.Config();
+        cacheConfig.setRouteId("esg-service");
+
+        // Default filters take their position as their order, as RouteDefinitionRouteLocator assigns it
+        GatewayFilter rateLimited = new OrderedGatewayFilter(
+                rateLimiterFactory.apply(new RequestRateLimiterGatewayFilterFactory.Config()), 1);
+        Route route = Route.async()
+                .id("esg-service")
+                .uri("http://esg-service")
+                .asyncPredicate(exchange -> Mono.just(true))
+                .filters(rateLimited, cacheFactory.apply(cacheConfig))
+                .build();
+
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        GlobalFilter upstream = (exchange, chain) -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            return response.writeWith(Mono.just(response.bufferFactory()
+                    .wrap("{\"score\":72}".getBytes(StandardCharsets.UTF_8))));
+        };
+        FilteringWebHandler handler = new FilteringWebHandler(List.of(new ResponseCacheLookupFilter(), upstream));
+
+        MockServerWebExchange miss = send(handler, route);
+        assertEquals(HttpStatus.OK, miss.getResponse().getStatusCode());
+        assertEquals("MISS", miss.getResponse().getHeaders().getFirst("X-Cache"));
+
+        MockServerWebExchange hit = send(handler, route);
+        assertEquals(HttpStatus.OK, hit.getResponse().getStatusCode());
+        assertEquals("HIT", hit.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(1, upstreamCalls.get());
+
+        MockServerWebExchange throttled = send(handler, route);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+        assertNotEquals("HIT", throttled.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private static MockServerWebExchange send(FilteringWebHandler handler, Route route) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/scores/AAPL"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        handler.handle(exchange).block();
+        return exchange;
+    }
+}
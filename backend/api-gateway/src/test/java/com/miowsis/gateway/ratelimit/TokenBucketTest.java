@@ -0,0 +1,70 @@
+package com.miowsis.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryAcquire_shouldAllowBurstThenReject() {
+        TokenBucket bucket = new TokenBucket(10, 20, 0);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(19 - i, bucket.tryAcquire(0, 1));
+        }
+        assertEquals(-1, bucket.tryAcquire(0, 1));
+    }
+
+    @Test
+    void tryAcquire_shouldReplenishAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 20, 0);
+        for (int i = 0; i < 20; i++) {
+            bucket.tryAcquire(0, 1);
+        }
+
+        // 10 tokens/s -> one token every 100ms
+        assertEquals(-1, bucket.tryAcquire(SECOND / 20, 1));
+        assertEquals(0, bucket.tryAcquire(SECOND / 10, 1));
+        assertEquals(4, bucket.tryAcquire(SECOND, 5));
+    }
+
+    @Test
+    void debit_shouldApplyRemoteConsumptionWithoutGoingBelowEmpty() {
+        TokenBucket bucket = new TokenBucket(10, 20, 0);
+
+        bucket.debit(0, 15);
+        assertEquals(4, bucket.tryAcquire(0, 1));
+
+        bucket.debit(0, 1_000);
+        assertEquals(-1, bucket.tryAcquire(0, 1));
+        assertEquals(0, bucket.tryAcquire(SECOND / 10, 1));
+    }
+
+    @Test
+    void drainUnsynced_shouldReportOnlyLocallyAdmittedTokens() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        bucket.tryAcquire(0, 1);
+        bucket.tryAcquire(0, 1);
+        bucket.tryAcquire(0, 1);
+
+        assertEquals(2, bucket.drainUnsynced());
+        assertEquals(0, bucket.drainUnsynced());
+    }
+
+    @Test
+    void isIdleSince_shouldRequireNoAccessAndNothingPendingSync() {
+        TokenBucket bucket = new TokenBucket(10, 20, 0);
+        bucket.tryAcquire(SECOND, 1);
+
+        assertFalse(bucket.isIdleSince(2 * SECOND));
+        bucket.drainUnsynced();
+        assertTrue(bucket.isIdleSince(2 * SECOND));
+        assertTrue(bucket.hasSettings(10, 20));
+        assertFalse(bucket.hasSettings(5, 20));
+    }
+}
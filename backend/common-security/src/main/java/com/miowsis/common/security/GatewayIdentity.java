@@ -0,0 +1,27 @@
+package com.miowsis.common.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// Caller identity as verified by the gateway, attached to the request by GatewayIdentityFilter
+public record GatewayIdentity(String userId, String email, List<String> roles, Instant expiresAt) implements Principal {
+
+    public static final String ATTRIBUTE = GatewayIdentity.class.getName();
+
+    public static Optional<GatewayIdentity> current(HttpServletRequest request) {
+        return Optional.ofNullable((GatewayIdentity) request.getAttribute(ATTRIBUTE));
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+}
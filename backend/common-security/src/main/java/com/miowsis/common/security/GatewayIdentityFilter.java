@@ -0,0 +1,98 @@
+package com.miowsis.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Trusts identity headers only when the gateway's signature over them checks out and has not expired.
+// Requests that carry no identity pass through untouched; a request with any unsigned or tampered
+// identity header is rejected, so a caller that bypasses the gateway cannot claim to be someone.
+@Slf4j
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    private final IdentitySigner signer;
+
+    public GatewayIdentityFilter(IdentitySigner signer) {
+        this.signer = signer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (IdentityHeaders.ALL.stream().allMatch(header -> request.getHeader(header) == null)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        GatewayIdentity identity = verify(request);
+        if (identity == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid identity headers");
+            return;
+        }
+        request.setAttribute(GatewayIdentity.ATTRIBUTE, identity);
+        filterChain.doFilter(new IdentityRequest(request, identity), response);
+    }
+
+    private GatewayIdentity verify(HttpServletRequest request) {
+        String userId = request.getHeader(IdentityHeaders.USER_ID);
+        String email = request.getHeader(IdentityHeaders.USER_EMAIL);
+        String roles = request.getHeader(IdentityHeaders.USER_ROLES);
+        String expires = request.getHeader(IdentityHeaders.EXPIRES_AT);
+        String signature = request.getHeader(IdentityHeaders.SIGNATURE);
+        if (userId == null || email == null || roles == null || expires == null || signature == null) {
+            log.debug("Rejected incomplete identity headers for {}", request.getRequestURI());
+            return null;
+        }
+
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        List<String> roleList = roles.isEmpty() ? List.of() : Arrays.asList(roles.split(","));
+        if (!signer.verify(userId, email, roleList, expiresAt, signature)) {
+            log.debug("Rejected identity headers with a bad signature for {}", request.getRequestURI());
+            return null;
+        }
+        Instant expiry = Instant.ofEpochSecond(expiresAt);
+        if (Instant.now().isAfter(expiry)) {
+            return null;
+        }
+        return new GatewayIdentity(userId, email, List.copyOf(roleList), expiry);
+    }
+
+    private static final class IdentityRequest extends HttpServletRequestWrapper {
+        private final GatewayIdentity identity;
+
+        private IdentityRequest(HttpServletRequest request, GatewayIdentity identity) {
+            super(request);
+            this.identity = identity;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return identity;
+        }
+
+        @Override
+        public String getRemoteUser() {
+            return identity.userId();
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return identity.hasRole(role);
+        }
+    }
+}
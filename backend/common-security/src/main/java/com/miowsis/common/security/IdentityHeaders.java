@@ -0,0 +1,18 @@
+package com.miowsis.common.security;
+
+import java.util.List;
+
+// Identity the gateway propagates downstream once a token has been verified, signed by IdentitySigner
+public final class IdentityHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_EMAIL = "X-User-Email";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String EXPIRES_AT = "X-Identity-Expires";
+    public static final String SIGNATURE = "X-Identity-Signature";
+
+    public static final List<String> ALL = List.of(USER_ID, USER_EMAIL, USER_ROLES, EXPIRES_AT, SIGNATURE);
+
+    private IdentityHeaders() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.miowsis.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+
+// The signature is Base64(HMAC-SHA256(userId|email|roles|expiresAtEpochSeconds)) under the shared
+// identity signing secret. Verifying it is one HMAC, with no token parsing or user lookup.
+public final class IdentitySigner {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public IdentitySigner(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("Identity signing secret must not be empty");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+
+    public String sign(String userId, String email, List<String> roles, long expiresAtEpochSeconds) {
+        return Base64.getEncoder().encodeToString(mac(payload(userId, email, roles, expiresAtEpochSeconds)));
+    }
+
+    public boolean verify(String userId, String email, List<String> roles, long expiresAtEpochSeconds,
+                          String signature) {
+        byte[] presented;
+        try {
+            presented = Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac(payload(userId, email, roles, expiresAtEpochSeconds)), presented);
+    }
+
+    private byte[] mac(String payload) {
+        try {
+            // Mac instances are not thread-safe, and creating one is cheap next to a request
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute identity signature", e);
+        }
+    }
+
+    private static String payload(String userId, String email, List<String> roles, long expiresAtEpochSeconds) {
+        return String.join("|", userId, email, String.join(",", roles), Long.toString(expiresAtEpochSeconds));
+    }
+}
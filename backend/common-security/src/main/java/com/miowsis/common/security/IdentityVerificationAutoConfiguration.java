@@ -0,0 +1,28 @@
+package com.miowsis.common.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdentityVerificationAutoConfiguration {
+
+    // Ahead of Spring Security's filter chain (-100), so it can build its principal from the result
+    public static final int FILTER_ORDER = -110;
+
+    @Bean
+    public IdentitySigner identitySigner(@Value("${identity.signing-secret}") String secret) {
+        return new IdentitySigner(secret);
+    }
+
+    @Bean
+    public FilterRegistrationBean<GatewayIdentityFilter> gatewayIdentityFilter(IdentitySigner identitySigner) {
+        FilterRegistrationBean<GatewayIdentityFilter> registration =
+                new FilterRegistrationBean<>(new GatewayIdentityFilter(identitySigner));
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+}
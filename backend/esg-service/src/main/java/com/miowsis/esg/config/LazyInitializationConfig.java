@@ -0,0 +1,17 @@
+package com.miowsis.esg.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // Schema migration and validation stay part of startup even when everything else is lazy
+    @Bean
+    public static LazyInitializationExcludeFilter eagerPersistenceBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, EntityManagerFactory.class);
+    }
+}
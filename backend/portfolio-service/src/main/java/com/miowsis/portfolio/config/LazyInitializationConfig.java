@@ -0,0 +1,33 @@
+package com.miowsis.portfolio.config;
+
+import com.miowsis.portfolio.listener.RoundUpEventListener;
+import com.miowsis.portfolio.service.AsyncOrderExecutor;
+import com.miowsis.portfolio.service.BatchRebalanceService;
+import com.miowsis.portfolio.service.CashSnapshotService;
+import com.miowsis.portfolio.service.PortfolioHistoryService;
+import com.miowsis.portfolio.service.RoundUpSweeper;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // With spring.main.lazy-initialization the schema would otherwise be migrated and validated on the
+    // first request instead of before the pod reports ready
+    @Bean
+    public static LazyInitializationExcludeFilter eagerPersistenceBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class, EntityManagerFactory.class);
+    }
+
+    // @KafkaListener and @Scheduled methods are only registered when their bean is created, so a lazy
+    // bean would never consume round-ups, sweep them, snapshot history and cash, or recover orders and runs
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(RoundUpEventListener.class, RoundUpSweeper.class,
+                PortfolioHistoryService.class, CashSnapshotService.class, AsyncOrderExecutor.class,
+                BatchRebalanceService.class);
+    }
+}
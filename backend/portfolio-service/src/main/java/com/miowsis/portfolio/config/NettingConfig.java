@@ -0,0 +1,24 @@
+package com.miowsis.portfolio.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "portfolio.netting")
+@Getter
+@Setter
+public class NettingConfig {
+    private boolean enabled = false;
+    // How long the first order for a symbol waits for others to join its batch
+    private Duration window = Duration.ofMillis(5);
+    private Integer maxBatchSize = 500;
+    private Integer allocationThreads = 8;
+    // Batches and allocations waiting for a thread; beyond this new orders are turned away
+    private Integer allocationQueueCapacity = 10_000;
+    // How long a caller waits for its order; one that has not started allocating by then is dropped
+    private Duration orderTimeout = Duration.ofSeconds(10);
+}
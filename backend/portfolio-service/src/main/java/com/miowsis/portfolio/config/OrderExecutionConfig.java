@@ -0,0 +1,23 @@
+package com.miowsis.portfolio.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "portfolio.orders.async")
+@Getter
+@Setter
+public class OrderExecutionConfig {
+    private boolean enabled = false;
+    // Orders for a user always land on the same partition, so they execute in submission order
+    private Integer partitions = 8;
+    private Integer queueCapacity = 1000;
+    // PENDING orders older than this are assumed lost (full queue, restart) and are resubmitted
+    private Duration recoverAfter = Duration.ofMinutes(1);
+    // Tries per order before a transient error (price or lock timeout) marks it FAILED
+    private Integer maxAttempts = 5;
+}
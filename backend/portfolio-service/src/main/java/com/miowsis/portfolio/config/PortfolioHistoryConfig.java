@@ -0,0 +1,20 @@
+package com.miowsis.portfolio.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "portfolio.history")
+@Getter
+@Setter
+public class PortfolioHistoryConfig {
+    // Must match the intraday cron so snapshots land on bucket boundaries
+    private Duration intradayInterval = Duration.ofMinutes(15);
+    private Duration intradayRetention = Duration.ofDays(30);
+    private Integer batchSize = 500;
+    private Double riskFreeRate = 0.04;
+}
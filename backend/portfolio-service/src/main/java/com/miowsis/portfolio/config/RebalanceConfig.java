@@ -0,0 +1,28 @@
+package com.miowsis.portfolio.config;
+
+import com.miowsis.portfolio.entity.Portfolio.PortfolioType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "portfolio.rebalance")
+@Getter
+@Setter
+public class RebalanceConfig {
+    // Symbol -> target weight per model portfolio; weights summing below 1 leave the rest in cash
+    private Map<PortfolioType, Map<String, BigDecimal>> targets = new EnumMap<>(PortfolioType.class);
+    // Portfolios whose largest weight deviation is below this are left alone
+    private BigDecimal driftThreshold = new BigDecimal("0.05");
+    private BigDecimal minTradeAmount = BigDecimal.ONE;
+    private Integer chunkSize = 1000;
+    private Integer parallelism = Runtime.getRuntime().availableProcessors();
+    // A RUNNING batch with no checkpoint for this long is assumed orphaned and resumed
+    private Duration resumeAfter = Duration.ofMinutes(5);
+}
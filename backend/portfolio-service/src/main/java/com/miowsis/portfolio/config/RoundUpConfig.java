@@ -0,0 +1,24 @@
+package com.miowsis.portfolio.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "portfolio.round-up")
+@Getter
+@Setter
+public class RoundUpConfig {
+    private String defaultSymbol = "VTI";
+    // A (user, symbol) bucket is swept once it holds this much, or once its oldest entry reaches max-age
+    private BigDecimal sweepThreshold = new BigDecimal("5.00");
+    private Duration maxAge = Duration.ofHours(24);
+    private Integer maxSweepsPerRun = 500;
+    // A bucket whose sweep fails waits retry-backoff, doubling per failure up to max-retry-backoff
+    private Duration retryBackoff = Duration.ofMinutes(5);
+    private Duration maxRetryBackoff = Duration.ofHours(24);
+}
@@ -1,17 +1,32 @@
 package com.miowsis.portfolio.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.miowsis.portfolio.dto.*;
+import com.miowsis.portfolio.entity.Portfolio;
+import com.miowsis.portfolio.service.AsyncOrderExecutor;
+import com.miowsis.portfolio.service.BatchRebalanceService;
+import com.miowsis.portfolio.service.HoldingSort;
+import com.miowsis.portfolio.service.NettingEngine;
+import com.miowsis.portfolio.service.OrderCommand;
 import com.miowsis.portfolio.service.PortfolioService;
+import com.miowsis.portfolio.service.RoundUpService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.UUID;
 
 @RestController
@@ -20,7 +35,14 @@ import java.util.UUID;
 @Tag(name = "Portfolio Management", description = "Portfolio management endpoints")
 public class PortfolioController {
     
+    private static final String PARTNER_ROLE = "PARTNER";
+    
     private final PortfolioService portfolioService;
+    private final RoundUpService roundUpService;
+    private final NettingEngine nettingEngine;
+    private final AsyncOrderExecutor asyncOrderExecutor;
+    private final BatchRebalanceService batchRebalanceService;
+    private final ObjectMapper objectMapper;
     
     @GetMapping("/{userId}")
     @Operation(summary = "Get user portfolio")
@@ -36,6 +58,28 @@ public class PortfolioController {
         return ResponseEntity.ok(portfolioService.getHoldings(userId, pageable));
     }
     
+    @GetMapping("/{userId}/holdings/cursor")
+    @Operation(summary = "Get portfolio holdings with cursor pagination")
+    public ResponseEntity<HoldingCursorPageDto> getHoldingsPage(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "symbol") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(portfolioService.getHoldingsPage(userId, HoldingSort.fromValue(sort), cursor, limit));
+    }
+    
+    @GetMapping(value = "/{userId}/holdings/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all portfolio holdings as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> exportHoldings(@PathVariable UUID userId) {
+        // Resolve the portfolio up front so a missing one fails before the response is committed
+        UUID portfolioId = portfolioService.getPortfolioId(userId);
+        StreamingResponseBody body = out -> portfolioService.exportHoldings(portfolioId,
+                holdings -> writeNdjson(out, holdings));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
     @GetMapping("/{userId}/performance")
     @Operation(summary = "Get portfolio performance")
     public ResponseEntity<PortfolioPerformanceDto> getPerformance(
@@ -44,13 +88,24 @@ public class PortfolioController {
         return ResponseEntity.ok(portfolioService.getPerformance(userId, period));
     }
     
+    @GetMapping("/{userId}/history")
+    @Operation(summary = "Get portfolio value history")
+    public ResponseEntity<PortfolioHistoryDto> getHistory(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "1M") String period) {
+        return ResponseEntity.ok(portfolioService.getHistory(userId, period));
+    }
+    
     @PostMapping("/{userId}/buy")
     @Operation(summary = "Buy securities")
     public ResponseEntity<TransactionDto> buySecurities(
             @PathVariable UUID userId,
             @Valid @RequestBody BuyOrderRequest request) {
+        if (asyncOrderExecutor.isEnabled()) {
+            return ResponseEntity.accepted().body(asyncOrderExecutor.submitBuy(userId, request));
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(portfolioService.executeBuyOrder(userId, request));
+                .body(nettingEngine.buy(OrderCommand.manual(userId, request)));
     }
     
     @PostMapping("/{userId}/sell")
@@ -58,8 +113,11 @@ public class PortfolioController {
     public ResponseEntity<TransactionDto> sellSecurities(
             @PathVariable UUID userId,
             @Valid @RequestBody SellOrderRequest request) {
+        if (asyncOrderExecutor.isEnabled()) {
+            return ResponseEntity.accepted().body(asyncOrderExecutor.submitSell(userId, request));
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(portfolioService.executeSellOrder(userId, request));
+                .body(nettingEngine.sell(userId, request));
     }
     
     @PostMapping("/{userId}/rebalance")
@@ -80,6 +138,14 @@ public class PortfolioController {
         return ResponseEntity.ok(portfolioService.getTransactions(userId, type, symbol, pageable));
     }
     
+    @GetMapping("/{userId}/transactions/{transactionId}")
+    @Operation(summary = "Get a transaction, e.g. to poll an accepted order")
+    public ResponseEntity<TransactionDto> getTransaction(
+            @PathVariable UUID userId,
+            @PathVariable UUID transactionId) {
+        return ResponseEntity.ok(portfolioService.getTransaction(userId, transactionId));
+    }
+    
     @GetMapping("/{userId}/allocation")
     @Operation(summary = "Get portfolio allocation")
     public ResponseEntity<PortfolioAllocationDto> getAllocation(@PathVariable UUID userId) {
@@ -87,11 +153,55 @@ public class PortfolioController {
     }
     
     @PostMapping("/{userId}/round-up")
-    @Operation(summary = "Process round-up investment")
-    public ResponseEntity<TransactionDto> processRoundUp(
+    @Operation(summary = "Record a round-up to be invested on the next sweep")
+    public ResponseEntity<RoundUpEntryDto> processRoundUp(
             @PathVariable UUID userId,
             @Valid @RequestBody RoundUpRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(portfolioService.processRoundUp(userId, request));
+                .body(roundUpService.recordRoundUp(userId, request));
+    }
+    
+    @PostMapping("/round-ups/bulk")
+    @Operation(summary = "Ingest a batch of round-ups from a card partner")
+    public ResponseEntity<BulkRoundUpResultDto> ingestRoundUps(
+            @Valid @RequestBody BulkRoundUpRequest request,
+            HttpServletRequest servletRequest) {
+        // Events name arbitrary users, so only partner credentials may post them
+        if (!servletRequest.isUserInRole(PARTNER_ROLE)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Bulk round-up ingestion requires the partner role");
+        }
+        return ResponseEntity.ok(roundUpService.ingest(request.getEvents()));
+    }
+    
+    @PostMapping("/rebalance-runs")
+    @Operation(summary = "Start rebalancing every active portfolio of a type against its model allocation")
+    public ResponseEntity<RebalanceRunDto> startRebalanceRun(@RequestParam Portfolio.PortfolioType portfolioType) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(batchRebalanceService.start(portfolioType));
+    }
+    
+    @GetMapping("/rebalance-runs/{runId}")
+    @Operation(summary = "Get progress of a batch rebalance run")
+    public ResponseEntity<RebalanceRunDto> getRebalanceRun(@PathVariable UUID runId) {
+        return ResponseEntity.ok(batchRebalanceService.getRun(runId));
+    }
+    
+    @PostMapping("/rebalance-runs/{runId}/resume")
+    @Operation(summary = "Resume a failed batch rebalance run from its last checkpoint")
+    public ResponseEntity<RebalanceRunDto> resumeRebalanceRun(@PathVariable UUID runId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(batchRebalanceService.resume(runId));
+    }
+    
+    private void writeNdjson(OutputStream out, Iterable<HoldingDto> holdings) {
+        try {
+            for (HoldingDto holding : holdings) {
+                out.write(objectMapper.writeValueAsBytes(holding));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.miowsis.portfolio.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRoundUpRequest {
+    // Events are validated one by one so a bad entry is reported without failing the whole batch
+    @NotEmpty
+    @Size(max = 10000)
+    private List<RoundUpEventDto> events;
+}
@@ -0,0 +1,28 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRoundUpResultDto {
+    private int received;
+    private int accepted;
+    private int duplicates;
+    private List<RejectedEvent> rejected;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RejectedEvent {
+        private int index;
+        private String idempotencyKey;
+        private String reason;
+    }
+}
@@ -0,0 +1,19 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldingCursorPageDto {
+    private List<HoldingDto> holdings;
+    // Opaque; pass back as ?cursor= to continue after the last holding of this page
+    private String nextCursor;
+    private boolean hasMore;
+}
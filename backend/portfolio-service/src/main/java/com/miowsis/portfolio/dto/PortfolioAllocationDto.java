@@ -0,0 +1,37 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioAllocationDto {
+    private String portfolioId;
+    private BigDecimal totalValue;
+    private List<AllocationSlice> sectors;
+    private List<AllocationSlice> assetTypes;
+    // Value-weighted over the holdings that carry each score
+    private Integer esgScore;
+    private Integer environmentalScore;
+    private Integer socialScore;
+    private Integer governanceScore;
+    private LocalDateTime asOf;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AllocationSlice {
+        private String name;
+        private BigDecimal value;
+        private BigDecimal percent;
+    }
+}
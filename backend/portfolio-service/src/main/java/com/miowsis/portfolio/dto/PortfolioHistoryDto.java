@@ -0,0 +1,28 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioHistoryDto {
+    private String period;
+    private String resolution;
+    private List<ValuePoint> points;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ValuePoint {
+        private Instant timestamp;
+        private BigDecimal value;
+    }
+}
@@ -0,0 +1,22 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioPerformanceDto {
+    private String userId;
+    private String period;
+    private BigDecimal totalReturn;
+    private BigDecimal annualizedReturn;
+    private BigDecimal volatility;
+    private BigDecimal sharpeRatio;
+    private BigDecimal maxDrawdown;
+}
@@ -0,0 +1,24 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebalanceRunDto {
+    private String id;
+    private String portfolioType;
+    private String status;
+    private long portfoliosScanned;
+    private long portfoliosRebalanced;
+    private long ordersWritten;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,24 @@
+package com.miowsis.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundUpEntryDto {
+    private String id;
+    private String userId;
+    private String targetSymbol;
+    private BigDecimal roundUpAmount;
+    private BigDecimal originalPurchaseAmount;
+    private String merchantName;
+    private String status;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.miowsis.portfolio.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// One card purchase as delivered by a partner, in bulk requests or on the card-round-ups topic
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundUpEventDto {
+    @NotNull
+    private UUID userId;
+
+    // Partner-assigned and globally unique; replays with a known key are ignored
+    @NotBlank
+    @Size(max = 128)
+    private String idempotencyKey;
+
+    @NotNull
+    @DecimalMin("0.01")
+    private BigDecimal purchaseAmount;
+
+    @Size(max = 20)
+    private String targetSymbol;
+
+    @Size(max = 255)
+    private String merchantName;
+}
@@ -0,0 +1,49 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Append-only cash movement; amount is positive for credits and negative for debits
+@Entity
+@Table(name = "cash_ledger")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CashLedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "portfolio_id", nullable = false, updatable = false)
+    private UUID portfolioId;
+
+    @Column(name = "amount", precision = 19, scale = 4, nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false)
+    private EntryType entryType;
+
+    @Column(name = "transaction_id", updatable = false)
+    private UUID transactionId;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public enum EntryType {
+        OPENING, DEPOSIT, WITHDRAWAL, BUY, SELL, DIVIDEND, FEE, REBALANCE
+    }
+}
@@ -51,7 +51,8 @@ public class Portfolio {
     @Column(name = "day_gain_percent", precision = 5, scale = 2)
     private BigDecimal dayGainPercent;
 
-    @Column(name = "cash_balance", precision = 19, scale = 4)
+    // Changed only through CashLedgerService's atomic SQL updates, never by flushing this entity
+    @Column(name = "cash_balance", precision = 19, scale = 4, updatable = false)
     private BigDecimal cashBalance;
 
     @Column(name = "esg_score")
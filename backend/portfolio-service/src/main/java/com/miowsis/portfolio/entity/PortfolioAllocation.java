@@ -0,0 +1,62 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Running sums over a portfolio's holdings, kept in step with every holding change so allocation
+// reads are a single row. Values are holdings' stored market values; cash is not included.
+@Entity
+@Table(name = "portfolio_allocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioAllocation {
+    @Id
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+
+    @Column(name = "total_value", precision = 19, scale = 4, nullable = false)
+    private BigDecimal totalValue;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "sector_values", nullable = false)
+    @Builder.Default
+    private Map<String, BigDecimal> sectorValues = new HashMap<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "asset_type_values", nullable = false)
+    @Builder.Default
+    private Map<String, BigDecimal> assetTypeValues = new HashMap<>();
+
+    // Per ESG pillar: sum of value * score, and the value of holdings that have that score
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "esg_weighted_scores", nullable = false)
+    @Builder.Default
+    private Map<String, BigDecimal> esgWeightedScores = new HashMap<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "esg_scored_values", nullable = false)
+    @Builder.Default
+    private Map<String, BigDecimal> esgScoredValues = new HashMap<>();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
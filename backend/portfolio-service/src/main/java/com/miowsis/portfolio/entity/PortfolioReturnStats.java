@@ -0,0 +1,79 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Persisted RunningStats over daily closes: one row per calendar month plus one for the portfolio's
+// whole history. Values are fixed-point cents like the value series.
+@Entity
+@Table(name = "portfolio_return_stats")
+@IdClass(PortfolioReturnStats.StatsId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioReturnStats {
+    @Id
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope")
+    private Scope scope;
+
+    // First day of the month for MONTH rows; unused (epoch) for the ALL row
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDate bucketStart;
+
+    @Column(name = "return_count", nullable = false)
+    private long returnCount;
+
+    @Column(name = "mean_return", nullable = false)
+    private double meanReturn;
+
+    @Column(name = "m2", nullable = false)
+    private double m2;
+
+    @Column(name = "open_timestamp", nullable = false)
+    private long openTimestamp;
+
+    @Column(name = "open_value", nullable = false)
+    private long openValue;
+
+    @Column(name = "last_timestamp", nullable = false)
+    private long lastTimestamp;
+
+    @Column(name = "last_value", nullable = false)
+    private long lastValue;
+
+    @Column(name = "peak_value", nullable = false)
+    private long peakValue;
+
+    @Column(name = "trough_value", nullable = false)
+    private long troughValue;
+
+    @Column(name = "max_drawdown", nullable = false)
+    private double maxDrawdown;
+
+    public enum Scope {
+        MONTH, ALL
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatsId implements Serializable {
+        private UUID portfolioId;
+        private Scope scope;
+        private LocalDate bucketStart;
+    }
+}
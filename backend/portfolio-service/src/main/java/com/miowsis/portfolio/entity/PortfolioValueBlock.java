@@ -0,0 +1,64 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One encoded run of valuations (see ValueSeriesCodec) for a portfolio at one resolution. Blocks
+// span a day of intraday points, a month of daily closes or a year of weekly closes.
+@Entity
+@Table(name = "portfolio_value_blocks")
+@IdClass(PortfolioValueBlock.BlockId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioValueBlock {
+    @Id
+    @Column(name = "portfolio_id")
+    private UUID portfolioId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution")
+    private Resolution resolution;
+
+    @Id
+    @Column(name = "block_start")
+    private LocalDate blockStart;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum Resolution {
+        INTRADAY, DAILY, WEEKLY
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BlockId implements Serializable {
+        private UUID portfolioId;
+        private Resolution resolution;
+        private LocalDate blockStart;
+    }
+}
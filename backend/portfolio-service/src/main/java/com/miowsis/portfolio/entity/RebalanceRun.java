@@ -0,0 +1,72 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One batch rebalance of every active portfolio of a type. lastPortfolioId is the checkpoint: chunks
+// are processed in id order and committed together with it, so a restarted run picks up after it.
+@Entity
+@Table(name = "rebalance_runs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RebalanceRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "portfolio_type", nullable = false, updatable = false)
+    private Portfolio.PortfolioType portfolioType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private RunStatus status;
+
+    @Column(name = "last_portfolio_id")
+    private UUID lastPortfolioId;
+
+    @Column(name = "portfolios_scanned", nullable = false)
+    private long portfoliosScanned;
+
+    @Column(name = "portfolios_rebalanced", nullable = false)
+    private long portfoliosRebalanced;
+
+    @Column(name = "orders_written", nullable = false)
+    private long ordersWritten;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "started_at", updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Doubles as the heartbeat for spotting runs orphaned by a restart
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum RunStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,73 @@
+package com.miowsis.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Append-only record of a single card round-up, waiting to be swept into a buy order
+@Entity
+@Table(name = "round_up_ledger")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundUpEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "idempotency_key", unique = true)
+    private String idempotencyKey;
+
+    @Column(name = "target_symbol", nullable = false)
+    private String targetSymbol;
+
+    @Column(name = "round_up_amount", precision = 19, scale = 4, nullable = false)
+    private BigDecimal roundUpAmount;
+
+    @Column(name = "original_purchase_amount", precision = 19, scale = 4, nullable = false)
+    private BigDecimal originalPurchaseAmount;
+
+    @Column(name = "merchant_name")
+    private String merchantName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private RoundUpStatus status;
+
+    @Column(name = "transaction_id")
+    private UUID transactionId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "swept_at")
+    private LocalDateTime sweptAt;
+
+    // Failed sweeps of this entry's bucket, and when the sweeper may try it again
+    @Column(name = "sweep_attempts", nullable = false)
+    private int sweepAttempts;
+
+    @Column(name = "next_sweep_at")
+    private LocalDateTime nextSweepAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public enum RoundUpStatus {
+        PENDING, SWEPT
+    }
+}
@@ -0,0 +1,50 @@
+package com.miowsis.portfolio.listener;
+
+import com.miowsis.portfolio.dto.BulkRoundUpResultDto;
+import com.miowsis.portfolio.dto.RoundUpEventDto;
+import com.miowsis.portfolio.service.RoundUpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoundUpEventListener {
+
+    private final RoundUpService roundUpService;
+
+    // Whole poll batches go through the bulk path; a redelivered batch is absorbed by the idempotency keys.
+    // Malformed records arrive as null values (see the ErrorHandlingDeserializer) and are rejected by ingest.
+    @KafkaListener(
+            topics = "card-round-ups",
+            batch = "true",
+            properties = {
+                    "spring.json.use.type.headers=false",
+                    "spring.json.value.default.type=com.miowsis.portfolio.dto.RoundUpEventDto",
+                    "max.poll.records=2000"
+            })
+    public void onRoundUps(List<ConsumerRecord<String, RoundUpEventDto>> records) {
+        List<RoundUpEventDto> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, RoundUpEventDto> record : records) {
+            RoundUpEventDto event = record.value();
+            if (event != null && event.getIdempotencyKey() == null) {
+                // Fall back to the record's position, which is stable across redeliveries
+                event.setIdempotencyKey("kafka:" + record.topic() + ":" + record.partition() + ":" + record.offset());
+            }
+            events.add(event);
+        }
+
+        BulkRoundUpResultDto result = roundUpService.ingest(events);
+        if (!result.getRejected().isEmpty()) {
+            log.warn("Rejected {} of {} round-up events: {}", result.getRejected().size(), result.getReceived(),
+                    result.getRejected().get(0).getReason());
+        }
+        log.debug("Ingested {} round-ups ({} duplicates)", result.getAccepted(), result.getDuplicates());
+    }
+}
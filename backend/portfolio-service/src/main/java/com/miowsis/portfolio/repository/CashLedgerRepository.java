@@ -0,0 +1,70 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.CashLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CashLedgerRepository extends JpaRepository<CashLedgerEntry, UUID> {
+    
+    // Next portfolios in id order with entries past their latest snapshot. FOR SHARE waits out any open
+    // cash write on them and blocks new ones until commit, so their ledgers are complete while locked.
+    @Query(value = """
+            SELECT p.id FROM portfolios p
+            WHERE p.id > :after
+              AND EXISTS (
+                  SELECT 1 FROM cash_ledger e
+                  WHERE e.portfolio_id = p.id
+                    AND e.seq > COALESCE((SELECT MAX(s.entries_through_seq) FROM cash_balance_snapshots s
+                                          WHERE s.portfolio_id = p.id), 0))
+            ORDER BY p.id
+            LIMIT :limit
+            FOR SHARE OF p
+            """, nativeQuery = true)
+    List<UUID> lockPortfoliosWithNewEntries(@Param("after") UUID after, @Param("limit") int limit);
+    
+    // Rolls each portfolio forward from its latest snapshot over the ledger tail, in one statement
+    @Modifying
+    @Query(value = """
+            INSERT INTO cash_balance_snapshots (id, portfolio_id, balance, entries_through_seq, taken_at)
+            SELECT gen_random_uuid(), e.portfolio_id, COALESCE(s.balance, 0) + SUM(e.amount), MAX(e.seq), NOW()
+            FROM cash_ledger e
+            LEFT JOIN LATERAL (
+                SELECT balance, entries_through_seq FROM cash_balance_snapshots
+                WHERE portfolio_id = e.portfolio_id
+                ORDER BY entries_through_seq DESC
+                LIMIT 1
+            ) s ON TRUE
+            WHERE e.portfolio_id IN :portfolioIds
+              AND e.seq > COALESCE(s.entries_through_seq, 0)
+            GROUP BY e.portfolio_id, s.balance
+            """, nativeQuery = true)
+    int snapshotBalances(@Param("portfolioIds") Collection<UUID> portfolioIds);
+    
+    // Portfolios whose running cash_balance no longer matches the balance rebuilt from their ledger
+    @Query(value = """
+            SELECT s.portfolio_id AS portfolioId, s.balance AS ledgerBalance, p.cash_balance AS cashBalance
+            FROM (
+                SELECT DISTINCT ON (portfolio_id) portfolio_id, balance FROM cash_balance_snapshots
+                WHERE portfolio_id IN :portfolioIds
+                ORDER BY portfolio_id, entries_through_seq DESC
+            ) s
+            JOIN portfolios p ON p.id = s.portfolio_id
+            WHERE s.balance <> COALESCE(p.cash_balance, 0)
+            """, nativeQuery = true)
+    List<CashDrift> findDrift(@Param("portfolioIds") Collection<UUID> portfolioIds);
+    
+    interface CashDrift {
+        UUID getPortfolioId();
+        BigDecimal getLedgerBalance();
+        BigDecimal getCashBalance();
+    }
+}
@@ -0,0 +1,65 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.Holding;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HoldingRepository extends JpaRepository<Holding, UUID> {
+    Page<Holding> findByPortfolioId(UUID portfolioId, Pageable pageable);
+    
+    Optional<Holding> findByPortfolioIdAndSymbol(UUID portfolioId, String symbol);
+    
+    // Held until commit so concurrent orders for the same holding apply one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Holding h WHERE h.portfolio.id = :portfolioId AND h.symbol = :symbol")
+    Optional<Holding> lockByPortfolioIdAndSymbol(@Param("portfolioId") UUID portfolioId, @Param("symbol") String symbol);
+    
+    // Keyset pages: the Pageable only carries the limit, and a List return type skips the count query
+    @Query("SELECT h FROM Holding h WHERE h.portfolio.id = :portfolioId AND h.symbol > :afterSymbol ORDER BY h.symbol ASC")
+    List<Holding> findPageBySymbol(@Param("portfolioId") UUID portfolioId,
+                                   @Param("afterSymbol") String afterSymbol,
+                                   Pageable limit);
+    
+    @Query("SELECT h FROM Holding h WHERE h.portfolio.id = :portfolioId " +
+           "ORDER BY COALESCE(h.marketValue, 0) DESC, h.id ASC")
+    List<Holding> findFirstPageByMarketValue(@Param("portfolioId") UUID portfolioId, Pageable limit);
+    
+    @Query("SELECT h FROM Holding h WHERE h.portfolio.id = :portfolioId " +
+           "AND (COALESCE(h.marketValue, 0) < :afterValue " +
+           "OR (COALESCE(h.marketValue, 0) = :afterValue AND h.id > :afterId)) " +
+           "ORDER BY COALESCE(h.marketValue, 0) DESC, h.id ASC")
+    List<Holding> findPageByMarketValue(@Param("portfolioId") UUID portfolioId,
+                                        @Param("afterValue") BigDecimal afterValue,
+                                        @Param("afterId") UUID afterId,
+                                        Pageable limit);
+    
+    List<Holding> findByPortfolioIdIn(Collection<UUID> portfolioIds);
+    
+    // Locked in id order so overlapping writers always acquire the rows the same way round
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Holding h WHERE h.portfolio.id IN :portfolioIds ORDER BY h.id")
+    List<Holding> lockByPortfolioIdIn(@Param("portfolioIds") Collection<UUID> portfolioIds);
+    
+    @Query("SELECT h.portfolio.id AS portfolioId, h.symbol AS symbol, h.shares AS shares " +
+           "FROM Holding h WHERE h.portfolio.id IN :portfolioIds")
+    List<Position> findPositions(@Param("portfolioIds") Collection<UUID> portfolioIds);
+    
+    interface Position {
+        UUID getPortfolioId();
+        String getSymbol();
+        BigDecimal getShares();
+    }
+}
@@ -0,0 +1,32 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.PortfolioAllocation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PortfolioAllocationRepository extends JpaRepository<PortfolioAllocation, UUID> {
+    @Query("SELECT a FROM PortfolioAllocation a WHERE a.portfolioId = " +
+           "(SELECT p.id FROM Portfolio p WHERE p.userId = :userId AND p.isActive = true)")
+    Optional<PortfolioAllocation> findByActiveUserId(@Param("userId") UUID userId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM PortfolioAllocation a WHERE a.portfolioId = :portfolioId")
+    Optional<PortfolioAllocation> lockById(@Param("portfolioId") UUID portfolioId);
+    
+    // 1 when this call created the row; a concurrent creator makes it wait and then return 0
+    @Modifying
+    @Query(value = "INSERT INTO portfolio_allocations (portfolio_id, total_value, sector_values, asset_type_values, " +
+                   "esg_weighted_scores, esg_scored_values, updated_at) " +
+                   "VALUES (:portfolioId, 0, '{}', '{}', '{}', '{}', NOW()) " +
+                   "ON CONFLICT (portfolio_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("portfolioId") UUID portfolioId);
+}
@@ -0,0 +1,49 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.Portfolio;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PortfolioRepository extends JpaRepository<Portfolio, UUID> {
+    Optional<Portfolio> findByUserIdAndIsActive(UUID userId, Boolean isActive);
+    
+    // Chunked walk over active portfolios in id order, for scheduled jobs
+    @Query("SELECT p FROM Portfolio p WHERE p.isActive = true AND p.id > :after ORDER BY p.id")
+    List<Portfolio> findActiveAfter(@Param("after") UUID after, Pageable limit);
+    
+    @Query("SELECT p FROM Portfolio p WHERE p.isActive = true AND p.portfolioType = :type AND p.id > :after " +
+           "ORDER BY p.id")
+    List<Portfolio> findActiveByTypeAfter(@Param("type") Portfolio.PortfolioType type,
+                                          @Param("after") UUID after,
+                                          Pageable limit);
+    
+    // 0 rows when the portfolio was already rebalanced at or after :runStartedAt
+    @Modifying
+    @Query("UPDATE Portfolio p SET p.lastRebalancedAt = :at WHERE p.id = :portfolioId " +
+           "AND (p.lastRebalancedAt IS NULL OR p.lastRebalancedAt < :runStartedAt)")
+    int markRebalancedBefore(@Param("portfolioId") UUID portfolioId,
+                             @Param("at") LocalDateTime at,
+                             @Param("runStartedAt") LocalDateTime runStartedAt);
+    
+    // Funds check and decrement in one statement; 0 rows updated means the balance was too low
+    @Modifying
+    @Query(value = "UPDATE portfolios SET cash_balance = cash_balance - :amount, updated_at = NOW() " +
+                   "WHERE id = :portfolioId AND cash_balance >= :amount", nativeQuery = true)
+    int debitCash(@Param("portfolioId") UUID portfolioId, @Param("amount") BigDecimal amount);
+    
+    @Modifying
+    @Query(value = "UPDATE portfolios SET cash_balance = cash_balance + :amount, updated_at = NOW() " +
+                   "WHERE id = :portfolioId", nativeQuery = true)
+    int creditCash(@Param("portfolioId") UUID portfolioId, @Param("amount") BigDecimal amount);
+}
@@ -0,0 +1,33 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.PortfolioReturnStats;
+import com.miowsis.portfolio.entity.PortfolioReturnStats.Scope;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PortfolioReturnStatsRepository extends JpaRepository<PortfolioReturnStats, PortfolioReturnStats.StatsId> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PortfolioReturnStats s WHERE s.portfolioId IN :portfolioIds " +
+           "AND s.scope = :scope AND s.bucketStart = :bucketStart")
+    List<PortfolioReturnStats> lockBuckets(@Param("portfolioIds") Collection<UUID> portfolioIds,
+                                           @Param("scope") Scope scope,
+                                           @Param("bucketStart") LocalDate bucketStart);
+    
+    Optional<PortfolioReturnStats> findByPortfolioIdAndScopeAndBucketStart(UUID portfolioId, Scope scope,
+                                                                          LocalDate bucketStart);
+    
+    List<PortfolioReturnStats> findByPortfolioIdAndScopeAndBucketStartGreaterThanEqualOrderByBucketStart(
+            UUID portfolioId, Scope scope, LocalDate fromBucket);
+}
@@ -0,0 +1,34 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.PortfolioValueBlock;
+import com.miowsis.portfolio.entity.PortfolioValueBlock.Resolution;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PortfolioValueBlockRepository extends JpaRepository<PortfolioValueBlock, PortfolioValueBlock.BlockId> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM PortfolioValueBlock b WHERE b.portfolioId IN :portfolioIds " +
+           "AND b.resolution = :resolution AND b.blockStart = :blockStart")
+    List<PortfolioValueBlock> lockBlocks(@Param("portfolioIds") Collection<UUID> portfolioIds,
+                                         @Param("resolution") Resolution resolution,
+                                         @Param("blockStart") LocalDate blockStart);
+    
+    List<PortfolioValueBlock> findByPortfolioIdAndResolutionAndBlockStartGreaterThanEqualOrderByBlockStart(
+            UUID portfolioId, Resolution resolution, LocalDate fromBlock);
+    
+    @Modifying
+    @Query("DELETE FROM PortfolioValueBlock b WHERE b.resolution = :resolution AND b.blockStart < :before")
+    int deleteOlderThan(@Param("resolution") Resolution resolution, @Param("before") LocalDate before);
+}
@@ -0,0 +1,26 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.Portfolio;
+import com.miowsis.portfolio.entity.RebalanceRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RebalanceRunRepository extends JpaRepository<RebalanceRun, UUID> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RebalanceRun r WHERE r.id = :id")
+    Optional<RebalanceRun> lockById(@Param("id") UUID id);
+    
+    List<RebalanceRun> findByStatusAndUpdatedAtBefore(RebalanceRun.RunStatus status, LocalDateTime before);
+    
+    boolean existsByPortfolioTypeAndStatus(Portfolio.PortfolioType portfolioType, RebalanceRun.RunStatus status);
+}
@@ -0,0 +1,64 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.RoundUpEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RoundUpEntryRepository extends JpaRepository<RoundUpEntry, UUID> {
+    
+    String PENDING = "com.miowsis.portfolio.entity.RoundUpEntry.RoundUpStatus.PENDING";
+    String SWEPT = "com.miowsis.portfolio.entity.RoundUpEntry.RoundUpStatus.SWEPT";
+    
+    // Pending (user, symbol) groups that crossed the amount threshold or have waited long enough, oldest
+    // first, skipping groups still backing off from a failed sweep
+    @Query("SELECT e.userId AS userId, e.targetSymbol AS targetSymbol, SUM(e.roundUpAmount) AS total, " +
+           "MAX(e.sweepAttempts) AS attempts " +
+           "FROM RoundUpEntry e WHERE e.status = " + PENDING + " " +
+           "GROUP BY e.userId, e.targetSymbol " +
+           "HAVING (SUM(e.roundUpAmount) >= :threshold OR MIN(e.createdAt) <= :oldestAllowed) " +
+           "AND (MAX(e.nextSweepAt) IS NULL OR MAX(e.nextSweepAt) <= :now) " +
+           "ORDER BY MIN(e.createdAt)")
+    List<PendingRoundUps> findSweepCandidates(@Param("threshold") BigDecimal threshold,
+                                              @Param("oldestAllowed") LocalDateTime oldestAllowed,
+                                              @Param("now") LocalDateTime now,
+                                              Pageable limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM RoundUpEntry e WHERE e.userId = :userId AND e.targetSymbol = :symbol AND e.status = " + PENDING)
+    List<RoundUpEntry> lockPending(@Param("userId") UUID userId, @Param("symbol") String symbol);
+    
+    @Modifying
+    @Query("UPDATE RoundUpEntry e SET e.status = " + SWEPT + ", e.transactionId = :transactionId, e.sweptAt = :sweptAt " +
+           "WHERE e.id IN :ids")
+    int markSwept(@Param("ids") Collection<UUID> ids,
+                  @Param("transactionId") UUID transactionId,
+                  @Param("sweptAt") LocalDateTime sweptAt);
+    
+    @Modifying
+    @Query("UPDATE RoundUpEntry e SET e.sweepAttempts = :attempts, e.nextSweepAt = :nextSweepAt " +
+           "WHERE e.userId = :userId AND e.targetSymbol = :symbol AND e.status = " + PENDING)
+    int deferPending(@Param("userId") UUID userId,
+                     @Param("symbol") String symbol,
+                     @Param("attempts") int attempts,
+                     @Param("nextSweepAt") LocalDateTime nextSweepAt);
+    
+    interface PendingRoundUps {
+        UUID getUserId();
+        String getTargetSymbol();
+        BigDecimal getTotal();
+        Integer getAttempts();
+    }
+}
@@ -0,0 +1,59 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.RoundUpEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Plain JDBC batch inserts for bulk ingestion. Ids are generated client-side so nothing has to be
+// read back, and ON CONFLICT turns a replayed idempotency key into a no-op instead of a failed batch.
+@Repository
+@RequiredArgsConstructor
+public class RoundUpLedgerWriter {
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO round_up_ledger (id, user_id, idempotency_key, target_symbol, round_up_amount,
+                                         original_purchase_amount, merchant_name, status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (idempotency_key) DO NOTHING
+            """;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+    
+    // Returns the number of rows actually inserted; the rest were duplicates
+    public int insertAll(List<RoundUpEntry> entries) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, entries, batchSize, (ps, entry) -> {
+            ps.setObject(1, entry.getId());
+            ps.setObject(2, entry.getUserId());
+            ps.setString(3, entry.getIdempotencyKey());
+            ps.setString(4, entry.getTargetSymbol());
+            ps.setBigDecimal(5, entry.getRoundUpAmount());
+            ps.setBigDecimal(6, entry.getOriginalPurchaseAmount());
+            if (entry.getMerchantName() != null) {
+                ps.setString(7, entry.getMerchantName());
+            } else {
+                ps.setNull(7, Types.VARCHAR);
+            }
+            ps.setString(8, entry.getStatus().name());
+            ps.setTimestamp(9, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+        
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    inserted += count;
+                }
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,27 @@
+package com.miowsis.portfolio.repository;
+
+import com.miowsis.portfolio.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> lockById(@Param("id") UUID id);
+    
+    List<Transaction> findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(Transaction.TransactionStatus status,
+                                                                        LocalDateTime createdBefore,
+                                                                        Pageable limit);
+}
@@ -0,0 +1,96 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.Holding;
+import com.miowsis.portfolio.entity.PortfolioAllocation;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+// Net effect of one or more holding changes on a portfolio's allocation sums. Callers take out a
+// holding's contribution before changing it and put it back afterwards.
+public final class AllocationDelta {
+    
+    static final String UNCLASSIFIED_SECTOR = "Unclassified";
+    static final String UNCLASSIFIED_ASSET_TYPE = "UNCLASSIFIED";
+    static final String OVERALL = "overall";
+    static final String ENVIRONMENTAL = "environmental";
+    static final String SOCIAL = "social";
+    static final String GOVERNANCE = "governance";
+    
+    // Sums are kept at the holdings' 4dp scale, so anything smaller is rounding residue
+    private static final BigDecimal DUST = new BigDecimal("0.0001");
+    
+    private BigDecimal total = BigDecimal.ZERO;
+    private final Map<String, BigDecimal> sectors = new HashMap<>();
+    private final Map<String, BigDecimal> assetTypes = new HashMap<>();
+    private final Map<String, BigDecimal> esgWeighted = new HashMap<>();
+    private final Map<String, BigDecimal> esgScored = new HashMap<>();
+    
+    public static AllocationDelta removing(Holding holding) {
+        AllocationDelta delta = new AllocationDelta();
+        delta.remove(holding);
+        return delta;
+    }
+    
+    public void add(Holding holding) {
+        accumulate(holding, valueOf(holding));
+    }
+    
+    public void remove(Holding holding) {
+        accumulate(holding, valueOf(holding).negate());
+    }
+    
+    public boolean isEmpty() {
+        return sectors.values().stream().allMatch(value -> value.signum() == 0)
+                && assetTypes.values().stream().allMatch(value -> value.signum() == 0)
+                && esgWeighted.values().stream().allMatch(value -> value.signum() == 0);
+    }
+    
+    void applyTo(PortfolioAllocation allocation) {
+        allocation.setTotalValue(allocation.getTotalValue().add(total));
+        allocation.setSectorValues(merge(allocation.getSectorValues(), sectors));
+        allocation.setAssetTypeValues(merge(allocation.getAssetTypeValues(), assetTypes));
+        allocation.setEsgWeightedScores(merge(allocation.getEsgWeightedScores(), esgWeighted));
+        allocation.setEsgScoredValues(merge(allocation.getEsgScoredValues(), esgScored));
+    }
+    
+    private void accumulate(Holding holding, BigDecimal value) {
+        if (value.signum() == 0) {
+            return;
+        }
+        total = total.add(value);
+        sectors.merge(holding.getSector() == null ? UNCLASSIFIED_SECTOR : holding.getSector(), value, BigDecimal::add);
+        assetTypes.merge(holding.getAssetType() == null ? UNCLASSIFIED_ASSET_TYPE : holding.getAssetType().name(),
+                value, BigDecimal::add);
+        accumulateScore(OVERALL, holding.getEsgScore(), value);
+        accumulateScore(ENVIRONMENTAL, holding.getEnvironmentalScore(), value);
+        accumulateScore(SOCIAL, holding.getSocialScore(), value);
+        accumulateScore(GOVERNANCE, holding.getGovernanceScore(), value);
+    }
+    
+    private void accumulateScore(String pillar, Integer score, BigDecimal value) {
+        if (score != null) {
+            esgWeighted.merge(pillar, value.multiply(BigDecimal.valueOf(score)), BigDecimal::add);
+            esgScored.merge(pillar, value, BigDecimal::add);
+        }
+    }
+    
+    private static BigDecimal valueOf(Holding holding) {
+        return holding.getMarketValue() == null ? BigDecimal.ZERO : holding.getMarketValue();
+    }
+    
+    // Returns a new map so the JSON columns are always seen as dirty
+    private static Map<String, BigDecimal> merge(Map<String, BigDecimal> current, Map<String, BigDecimal> changes) {
+        Map<String, BigDecimal> target = new HashMap<>(current);
+        changes.forEach((key, change) -> {
+            BigDecimal updated = target.getOrDefault(key, BigDecimal.ZERO).add(change);
+            if (updated.abs().compareTo(DUST) < 0) {
+                target.remove(key);
+            } else {
+                target.put(key, updated);
+            }
+        });
+        return target;
+    }
+}
@@ -0,0 +1,112 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.dto.PortfolioAllocationDto;
+import com.miowsis.portfolio.dto.PortfolioAllocationDto.AllocationSlice;
+import com.miowsis.portfolio.entity.Holding;
+import com.miowsis.portfolio.entity.PortfolioAllocation;
+import com.miowsis.portfolio.exception.PortfolioNotFoundException;
+import com.miowsis.portfolio.repository.HoldingRepository;
+import com.miowsis.portfolio.repository.PortfolioAllocationRepository;
+import com.miowsis.portfolio.repository.PortfolioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Maintains the per-portfolio allocation row. Writers lock it after the portfolio's cash update, which
+// every order path performs first, so the two row locks are always taken in the same order.
+@Service
+@RequiredArgsConstructor
+public class AllocationService {
+    
+    private final PortfolioAllocationRepository allocationRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingRepository holdingRepository;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(UUID portfolioId, AllocationDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        if (allocationRepository.insertIfAbsent(portfolioId) == 1) {
+            // First change for this portfolio: the query flushes pending holding writes, so the
+            // rebuild already includes this delta
+            allocationRepository.save(rebuild(portfolioId));
+            return;
+        }
+        PortfolioAllocation allocation = allocationRepository.lockById(portfolioId)
+                .orElseThrow(() -> new IllegalStateException("Allocation row vanished for portfolio " + portfolioId));
+        delta.applyTo(allocation);
+        allocationRepository.save(allocation);
+    }
+    
+    // Portfolios that have not traded since the aggregate was introduced are materialized on first read
+    @Transactional
+    public PortfolioAllocationDto getAllocation(UUID userId) {
+        PortfolioAllocation allocation = allocationRepository.findByActiveUserId(userId).orElseGet(() -> {
+            UUID portfolioId = portfolioRepository.findByUserIdAndIsActive(userId, true)
+                    .orElseThrow(() -> new PortfolioNotFoundException("Portfolio not found for user: " + userId))
+                    .getId();
+            // Holding the row lock while rebuilding keeps concurrent deltas from landing in between
+            allocationRepository.insertIfAbsent(portfolioId);
+            allocationRepository.lockById(portfolioId);
+            return allocationRepository.save(rebuild(portfolioId));
+        });
+        return toDto(allocation);
+    }
+    
+    private PortfolioAllocation rebuild(UUID portfolioId) {
+        AllocationDelta delta = new AllocationDelta();
+        for (Holding holding : holdingRepository.findByPortfolioIdIn(List.of(portfolioId))) {
+            delta.add(holding);
+        }
+        PortfolioAllocation allocation = PortfolioAllocation.builder()
+                .portfolioId(portfolioId)
+                .totalValue(BigDecimal.ZERO)
+                .build();
+        delta.applyTo(allocation);
+        return allocation;
+    }
+    
+    private static PortfolioAllocationDto toDto(PortfolioAllocation allocation) {
+        BigDecimal total = allocation.getTotalValue();
+        return PortfolioAllocationDto.builder()
+                .portfolioId(allocation.getPortfolioId().toString())
+                .totalValue(total)
+                .sectors(slices(allocation.getSectorValues(), total))
+                .assetTypes(slices(allocation.getAssetTypeValues(), total))
+                .esgScore(weightedScore(allocation, AllocationDelta.OVERALL))
+                .environmentalScore(weightedScore(allocation, AllocationDelta.ENVIRONMENTAL))
+                .socialScore(weightedScore(allocation, AllocationDelta.SOCIAL))
+                .governanceScore(weightedScore(allocation, AllocationDelta.GOVERNANCE))
+                .asOf(allocation.getUpdatedAt())
+                .build();
+    }
+    
+    private static List<AllocationSlice> slices(Map<String, BigDecimal> values, BigDecimal total) {
+        return values.entrySet().stream()
+                .map(entry -> AllocationSlice.builder()
+                        .name(entry.getKey())
+                        .value(entry.getValue())
+                        .percent(total.signum() == 0 ? BigDecimal.ZERO
+                                : entry.getValue().multiply(BigDecimal.valueOf(100)).divide(total, 2, RoundingMode.HALF_UP))
+                        .build())
+                .sorted(Comparator.comparing(AllocationSlice::getValue).reversed())
+                .toList();
+    }
+    
+    private static Integer weightedScore(PortfolioAllocation allocation, String pillar) {
+        BigDecimal scored = allocation.getEsgScoredValues().get(pillar);
+        if (scored == null || scored.signum() <= 0) {
+            return null;
+        }
+        return allocation.getEsgWeightedScores().get(pillar).divide(scored, 0, RoundingMode.HALF_UP).intValue();
+    }
+}
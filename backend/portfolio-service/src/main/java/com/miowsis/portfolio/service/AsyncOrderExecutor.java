@@ -0,0 +1,140 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.OrderExecutionConfig;
+import com.miowsis.portfolio.dto.BuyOrderRequest;
+import com.miowsis.portfolio.dto.SellOrderRequest;
+import com.miowsis.portfolio.dto.TransactionDto;
+import com.miowsis.portfolio.entity.Transaction;
+import com.miowsis.portfolio.exception.InsufficientFundsException;
+import com.miowsis.portfolio.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Accepts orders as PENDING transactions and executes them off the request thread. Workers are
+// partitioned by userId so one user's orders never race each other. Completion publishes the usual
+// portfolio.buy / portfolio.sell event; rejections publish portfolio.order.failed. Transient errors
+// leave the order PENDING for the recovery sweep, up to maxAttempts tries on this instance.
+@Component
+@Slf4j
+public class AsyncOrderExecutor {
+    
+    private final PortfolioService portfolioService;
+    private final TransactionRepository transactionRepository;
+    private final OrderExecutionConfig config;
+    private final ThreadPoolExecutor[] partitions;
+    // Transactions queued or executing on this instance, which the recovery sweep leaves alone
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Integer> transientFailures = new ConcurrentHashMap<>();
+    
+    public AsyncOrderExecutor(PortfolioService portfolioService, TransactionRepository transactionRepository,
+                              OrderExecutionConfig config, WorkerThreads workerThreads) {
+        this.portfolioService = portfolioService;
+        this.transactionRepository = transactionRepository;
+        this.config = config;
+        this.partitions = new ThreadPoolExecutor[config.getPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                    workerThreads.named("order-worker-" + i + "-"));
+        }
+    }
+    
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    public TransactionDto submitBuy(UUID userId, BuyOrderRequest request) {
+        TransactionDto pending = portfolioService.acceptBuyOrder(userId, request);
+        dispatch(userId, UUID.fromString(pending.getId()));
+        return pending;
+    }
+    
+    public TransactionDto submitSell(UUID userId, SellOrderRequest request) {
+        TransactionDto pending = portfolioService.acceptSellOrder(userId, request);
+        dispatch(userId, UUID.fromString(pending.getId()));
+        return pending;
+    }
+    
+    // Oldest first, so a user's deferred orders are re-queued in the order they were accepted
+    @Scheduled(fixedDelayString = "${portfolio.orders.async.recovery-interval:30000}")
+    public void resubmitStalePending() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getRecoverAfter());
+        Set<UUID> stillPending = new HashSet<>();
+        for (Transaction stale : transactionRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                Transaction.TransactionStatus.PENDING, cutoff, PageRequest.ofSize(config.getQueueCapacity()))) {
+            stillPending.add(stale.getId());
+            dispatch(stale.getUserId(), stale.getId());
+        }
+        // Orders finished by another instance are never retried here, so their counts are dropped
+        transientFailures.keySet().removeIf(id -> !stillPending.contains(id) && !inFlight.contains(id));
+    }
+    
+    private void dispatch(UUID userId, UUID transactionId) {
+        if (!inFlight.add(transactionId)) {
+            return; // Still queued here from an earlier dispatch
+        }
+        ThreadPoolExecutor partition = partitions[Math.floorMod(userId.hashCode(), partitions.length)];
+        try {
+            partition.execute(() -> {
+                try {
+                    execute(userId, transactionId);
+                } finally {
+                    inFlight.remove(transactionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(transactionId);
+            // Still PENDING in the database; the recovery sweep picks it up
+            log.warn("Order queue full, deferring transaction {} for user {}", transactionId, userId);
+        }
+    }
+    
+    private void execute(UUID userId, UUID transactionId) {
+        try {
+            portfolioService.completePendingOrder(userId, transactionId);
+            transientFailures.remove(transactionId);
+        } catch (InsufficientFundsException | IllegalArgumentException | ValidationException e) {
+            // Missing funds or shares, unknown symbol or invalid order: retrying cannot succeed
+            transientFailures.remove(transactionId);
+            log.info("Order {} for user {} rejected: {}", transactionId, userId, e.getMessage());
+            portfolioService.failPendingOrder(transactionId, e.getMessage());
+        } catch (RuntimeException e) {
+            // Price or lock timeouts, dropped connections: the rolled back order is still PENDING
+            int attempts = transientFailures.merge(transactionId, 1, Integer::sum);
+            if (attempts < config.getMaxAttempts()) {
+                log.warn("Order {} for user {} failed on attempt {}, leaving it pending: {}",
+                        transactionId, userId, attempts, e.getMessage());
+                return;
+            }
+            transientFailures.remove(transactionId);
+            log.error("Order {} for user {} failed {} times, giving up: {}",
+                    transactionId, userId, attempts, e.getMessage());
+            portfolioService.failPendingOrder(transactionId, "Failed after " + attempts + " attempts: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+    }
+}
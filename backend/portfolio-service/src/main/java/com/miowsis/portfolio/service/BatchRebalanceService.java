@@ -0,0 +1,269 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.RebalanceConfig;
+import com.miowsis.portfolio.dto.RebalanceRunDto;
+import com.miowsis.portfolio.entity.Portfolio;
+import com.miowsis.portfolio.entity.RebalanceRun;
+import com.miowsis.portfolio.repository.HoldingRepository;
+import com.miowsis.portfolio.repository.HoldingRepository.Position;
+import com.miowsis.portfolio.repository.PortfolioRepository;
+import com.miowsis.portfolio.repository.RebalanceRunRepository;
+import com.miowsis.portfolio.service.RebalancePlanner.RebalancePlan;
+import com.miowsis.portfolio.service.RebalancePlanner.Trade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+// Rebalances every active portfolio of one type against the configured model weights. Portfolios are
+// walked in id order in chunks; each chunk is planned in parallel on a dedicated fork-join pool (planning
+// is pure CPU work), then written one portfolio per transaction before the run's checkpoint advances.
+@Service
+@Slf4j
+public class BatchRebalanceService {
+    
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingRepository holdingRepository;
+    private final RebalanceRunRepository rebalanceRunRepository;
+    private final RebalancePlanner planner;
+    private final RebalanceWriter writer;
+    private final MarketDataService marketDataService;
+    private final RebalanceConfig config;
+    
+    private final ForkJoinPool planningPool;
+    private final ExecutorService runners;
+    // Runs this instance is executing, so the orphan sweep does not adopt them
+    private final Set<UUID> active = ConcurrentHashMap.newKeySet();
+    
+    private final Counter grossAmount;
+    private final Counter netAmount;
+    
+    public BatchRebalanceService(PortfolioRepository portfolioRepository, HoldingRepository holdingRepository,
+                                 RebalanceRunRepository rebalanceRunRepository, RebalancePlanner planner,
+                                 RebalanceWriter writer, MarketDataService marketDataService,
+                                 RebalanceConfig config, MeterRegistry meterRegistry, WorkerThreads workerThreads) {
+        this.portfolioRepository = portfolioRepository;
+        this.holdingRepository = holdingRepository;
+        this.rebalanceRunRepository = rebalanceRunRepository;
+        this.planner = planner;
+        this.writer = writer;
+        this.marketDataService = marketDataService;
+        this.config = config;
+        this.planningPool = new ForkJoinPool(config.getParallelism());
+        // One thread per portfolio type is enough: at most one run per type is RUNNING at a time
+        this.runners = Executors.newFixedThreadPool(Portfolio.PortfolioType.values().length,
+                workerThreads.named("rebalance-runner-"));
+        this.grossAmount = meterRegistry.counter("portfolio.rebalance.amount", "kind", "gross");
+        this.netAmount = meterRegistry.counter("portfolio.rebalance.amount", "kind", "net");
+    }
+    
+    public RebalanceRunDto start(Portfolio.PortfolioType type) {
+        if (targetsFor(type).isEmpty()) {
+            throw new IllegalArgumentException("No target allocation configured for " + type);
+        }
+        if (rebalanceRunRepository.existsByPortfolioTypeAndStatus(type, RebalanceRun.RunStatus.RUNNING)) {
+            throw alreadyRunning(type);
+        }
+        RebalanceRun run = saveRunning(RebalanceRun.builder()
+                .portfolioType(type)
+                .status(RebalanceRun.RunStatus.RUNNING)
+                .lastPortfolioId(FIRST_ID)
+                .build());
+        submit(run.getId());
+        return toDto(run);
+    }
+    
+    // Picks a failed run back up from its last checkpoint
+    public RebalanceRunDto resume(UUID runId) {
+        RebalanceRun run = findRun(runId);
+        if (run.getStatus() != RebalanceRun.RunStatus.FAILED) {
+            throw new IllegalStateException("Only failed runs can be resumed, run is " + run.getStatus());
+        }
+        run.setStatus(RebalanceRun.RunStatus.RUNNING);
+        run.setErrorMessage(null);
+        submit(saveRunning(run).getId());
+        return toDto(run);
+    }
+    
+    // The check before this is only a fast path; the partial unique index on RUNNING runs is what stops
+    // two concurrent starts (or a start and a resume) for one type from both succeeding
+    private RebalanceRun saveRunning(RebalanceRun run) {
+        try {
+            return rebalanceRunRepository.saveAndFlush(run);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyRunning(run.getPortfolioType());
+        }
+    }
+    
+    private static IllegalStateException alreadyRunning(Portfolio.PortfolioType type) {
+        return new IllegalStateException("A rebalance run is already in progress for " + type);
+    }
+    
+    public RebalanceRunDto getRun(UUID runId) {
+        return toDto(findRun(runId));
+    }
+    
+    // A RUNNING run whose checkpoint has gone quiet lost its worker to a restart; the writer's
+    // per-portfolio fence keeps two instances adopting it at once from rebalancing a portfolio twice
+    @Scheduled(fixedDelayString = "${portfolio.rebalance.recovery-interval:60000}")
+    public void resumeOrphanedRuns() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getResumeAfter());
+        for (RebalanceRun run : rebalanceRunRepository.findByStatusAndUpdatedAtBefore(RebalanceRun.RunStatus.RUNNING, cutoff)) {
+            if (!active.contains(run.getId())) {
+                log.info("Resuming orphaned rebalance run {} for {} after portfolio {}",
+                        run.getId(), run.getPortfolioType(), run.getLastPortfolioId());
+                submit(run.getId());
+            }
+        }
+    }
+    
+    private void submit(UUID runId) {
+        if (active.add(runId)) {
+            runners.execute(() -> {
+                try {
+                    execute(runId);
+                } finally {
+                    active.remove(runId);
+                }
+            });
+        }
+    }
+    
+    private void execute(UUID runId) {
+        RebalanceRun run = findRun(runId);
+        Portfolio.PortfolioType type = run.getPortfolioType();
+        Map<String, BigDecimal> targets = targetsFor(type);
+        // One quote per symbol for the whole run, so every portfolio trades at the same prices
+        Map<String, BigDecimal> prices = new HashMap<>();
+        UUID after = run.getLastPortfolioId();
+        
+        try {
+            List<Portfolio> chunk;
+            do {
+                chunk = portfolioRepository.findActiveByTypeAfter(type, after, PageRequest.ofSize(config.getChunkSize()));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                UUID last = chunk.get(chunk.size() - 1).getId();
+                List<RebalancePlan> plans = planChunk(chunk, targets, prices);
+                int rebalanced = 0;
+                int orders = 0;
+                for (RebalancePlan plan : plans) {
+                    int written = writer.writePortfolio(runId, run.getStartedAt(), plan, prices);
+                    if (written > 0) {
+                        rebalanced++;
+                        orders += written;
+                    }
+                }
+                if (!writer.advance(runId, after, last, chunk.size(), rebalanced, orders)) {
+                    log.info("Rebalance run {} was taken over or stopped elsewhere, releasing it", runId);
+                    return;
+                }
+                recordNetting(plans);
+                after = last;
+            } while (chunk.size() == config.getChunkSize());
+            
+            finish(runId, RebalanceRun.RunStatus.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("Rebalance run {} failed after portfolio {}", runId, after, e);
+            finish(runId, RebalanceRun.RunStatus.FAILED, e.getMessage());
+        }
+    }
+    
+    private List<RebalancePlan> planChunk(List<Portfolio> chunk, Map<String, BigDecimal> targets,
+                                          Map<String, BigDecimal> prices) {
+        Map<UUID, Map<String, BigDecimal>> shares = new HashMap<>();
+        for (Position position : holdingRepository.findPositions(chunk.stream().map(Portfolio::getId).toList())) {
+            shares.computeIfAbsent(position.getPortfolioId(), id -> new HashMap<>())
+                    .put(position.getSymbol(), position.getShares());
+        }
+        // Quotes are fetched up front so the parallel planners only read the map
+        targets.keySet().forEach(symbol -> prices.computeIfAbsent(symbol, marketDataService::getCurrentPrice));
+        shares.values().forEach(held -> held.keySet()
+                .forEach(symbol -> prices.computeIfAbsent(symbol, marketDataService::getCurrentPrice)));
+        
+        return planningPool.submit(() -> chunk.parallelStream()
+                .map(portfolio -> planner.plan(portfolio.getId(), portfolio.getUserId(), portfolio.getCashBalance(),
+                        shares.getOrDefault(portfolio.getId(), Map.of()), targets, prices))
+                .filter(RebalancePlan::hasTrades)
+                .toList()).join();
+    }
+    
+    // Every trade is booked per portfolio, but buys and sells of the same symbol across the chunk offset
+    // each other; only the net per symbol would have to reach the market
+    private void recordNetting(List<RebalancePlan> plans) {
+        Map<String, BigDecimal> net = new TreeMap<>();
+        BigDecimal gross = BigDecimal.ZERO;
+        for (RebalancePlan plan : plans) {
+            for (Trade trade : plan.trades()) {
+                net.merge(trade.symbol(), trade.buy() ? trade.amount() : trade.amount().negate(), BigDecimal::add);
+                gross = gross.add(trade.amount());
+            }
+        }
+        BigDecimal residual = net.values().stream().map(BigDecimal::abs).reduce(BigDecimal.ZERO, BigDecimal::add);
+        grossAmount.increment(gross.doubleValue());
+        netAmount.increment(residual.doubleValue());
+        if (!net.isEmpty()) {
+            log.debug("Rebalance chunk netted {} gross to {} net: {}", gross, residual, net);
+        }
+    }
+    
+    private void finish(UUID runId, RebalanceRun.RunStatus status, String error) {
+        RebalanceRun run = findRun(runId);
+        run.setStatus(status);
+        run.setErrorMessage(error);
+        run.setCompletedAt(LocalDateTime.now());
+        rebalanceRunRepository.save(run);
+        log.info("Rebalance run {} for {} {}: {} scanned, {} rebalanced, {} orders",
+                runId, run.getPortfolioType(), status, run.getPortfoliosScanned(),
+                run.getPortfoliosRebalanced(), run.getOrdersWritten());
+    }
+    
+    private Map<String, BigDecimal> targetsFor(Portfolio.PortfolioType type) {
+        return config.getTargets().getOrDefault(type, Map.of());
+    }
+    
+    private RebalanceRun findRun(UUID runId) {
+        return rebalanceRunRepository.findById(runId)
+                .orElseThrow(() -> new IllegalArgumentException("Rebalance run not found: " + runId));
+    }
+    
+    private RebalanceRunDto toDto(RebalanceRun run) {
+        return RebalanceRunDto.builder()
+                .id(run.getId().toString())
+                .portfolioType(run.getPortfolioType().name())
+                .status(run.getStatus().name())
+                .portfoliosScanned(run.getPortfoliosScanned())
+                .portfoliosRebalanced(run.getPortfoliosRebalanced())
+                .ordersWritten(run.getOrdersWritten())
+                .errorMessage(run.getErrorMessage())
+                .startedAt(run.getStartedAt())
+                .completedAt(run.getCompletedAt())
+                .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        runners.shutdownNow();
+        planningPool.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.CashLedgerEntry;
+import com.miowsis.portfolio.entity.CashLedgerEntry.EntryType;
+import com.miowsis.portfolio.exception.InsufficientFundsException;
+import com.miowsis.portfolio.repository.CashLedgerRepository;
+import com.miowsis.portfolio.repository.PortfolioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Cash moves as a conditional in-place increment on portfolios.cash_balance plus an append-only ledger
+// row, so concurrent orders for one user never read-modify-write the balance. The UPDATE holds the
+// portfolio row lock until commit, which is why order execution applies cash as its last step.
+// CashSnapshotService relies on that lock to snapshot and reconcile the ledger.
+@Service
+@RequiredArgsConstructor
+public class CashLedgerService {
+    
+    private final PortfolioRepository portfolioRepository;
+    private final CashLedgerRepository cashLedgerRepository;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(UUID portfolioId, BigDecimal amount, EntryType type, UUID transactionId) {
+        if (portfolioRepository.debitCash(portfolioId, amount) == 0) {
+            throw new InsufficientFundsException("Insufficient funds for purchase");
+        }
+        append(portfolioId, amount.negate(), type, transactionId);
+    }
+    
+    // Same as debit, but reports a failed funds check instead of throwing so batch callers can skip one portfolio
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryDebit(UUID portfolioId, BigDecimal amount, EntryType type, UUID transactionId) {
+        if (portfolioRepository.debitCash(portfolioId, amount) == 0) {
+            return false;
+        }
+        append(portfolioId, amount.negate(), type, transactionId);
+        return true;
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(UUID portfolioId, BigDecimal amount, EntryType type, UUID transactionId) {
+        portfolioRepository.creditCash(portfolioId, amount);
+        append(portfolioId, amount, type, transactionId);
+    }
+    
+    private void append(UUID portfolioId, BigDecimal amount, EntryType type, UUID transactionId) {
+        cashLedgerRepository.save(CashLedgerEntry.builder()
+                .portfolioId(portfolioId)
+                .amount(amount)
+                .entryType(type)
+                .transactionId(transactionId)
+                .build());
+    }
+}
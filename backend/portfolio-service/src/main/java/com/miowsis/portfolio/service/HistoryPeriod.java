@@ -0,0 +1,48 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.PortfolioValueBlock.Resolution;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Each period reads the coarsest rollup that still gives a useful chart, keeping every query
+// to a few hundred points at most
+@Getter
+@RequiredArgsConstructor
+public enum HistoryPeriod {
+    ONE_DAY("1D", Resolution.INTRADAY),
+    ONE_WEEK("1W", Resolution.DAILY),
+    ONE_MONTH("1M", Resolution.DAILY),
+    THREE_MONTHS("3M", Resolution.DAILY),
+    SIX_MONTHS("6M", Resolution.DAILY),
+    YEAR_TO_DATE("YTD", Resolution.DAILY),
+    ONE_YEAR("1Y", Resolution.DAILY),
+    FIVE_YEARS("5Y", Resolution.WEEKLY),
+    ALL("ALL", Resolution.WEEKLY);
+
+    private final String value;
+    private final Resolution resolution;
+
+    public static HistoryPeriod fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(period -> period.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported period: " + value));
+    }
+
+    public LocalDate start(LocalDate today) {
+        return switch (this) {
+            case ONE_DAY -> today.minusDays(1);
+            case ONE_WEEK -> today.minusWeeks(1);
+            case ONE_MONTH -> today.minusMonths(1);
+            case THREE_MONTHS -> today.minusMonths(3);
+            case SIX_MONTHS -> today.minusMonths(6);
+            case YEAR_TO_DATE -> today.withDayOfYear(1);
+            case ONE_YEAR -> today.minusYears(1);
+            case FIVE_YEARS -> today.minusYears(5);
+            case ALL -> LocalDate.EPOCH;
+        };
+    }
+}
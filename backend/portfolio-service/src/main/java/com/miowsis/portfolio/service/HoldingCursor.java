@@ -0,0 +1,45 @@
+package com.miowsis.portfolio.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position of the last holding on a keyset page, encoded as an opaque URL-safe token.
+// Symbol cursors carry the symbol; market-value cursors carry the value plus the id as a tie-breaker.
+record HoldingCursor(String symbol, BigDecimal marketValue, UUID id) {
+
+    private static final String SYMBOL_PREFIX = "s:";
+    private static final String VALUE_PREFIX = "v:";
+
+    static HoldingCursor afterSymbol(String symbol) {
+        return new HoldingCursor(symbol, null, null);
+    }
+
+    static HoldingCursor afterMarketValue(BigDecimal marketValue, UUID id) {
+        return new HoldingCursor(null, marketValue != null ? marketValue : BigDecimal.ZERO, id);
+    }
+
+    String encode() {
+        String raw = symbol != null
+                ? SYMBOL_PREFIX + symbol
+                : VALUE_PREFIX + marketValue.toPlainString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static HoldingCursor decode(String token, HoldingSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (sort == HoldingSort.SYMBOL && raw.startsWith(SYMBOL_PREFIX)) {
+                return afterSymbol(raw.substring(SYMBOL_PREFIX.length()));
+            }
+            if (sort == HoldingSort.MARKET_VALUE && raw.startsWith(VALUE_PREFIX)) {
+                String[] parts = raw.substring(VALUE_PREFIX.length()).split("\\|", 2);
+                return afterMarketValue(new BigDecimal(parts[0]), UUID.fromString(parts[1]));
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid holdings cursor for sort " + sort.getValue());
+    }
+}
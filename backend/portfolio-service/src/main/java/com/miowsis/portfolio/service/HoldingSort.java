@@ -0,0 +1,22 @@
+package com.miowsis.portfolio.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum HoldingSort {
+    SYMBOL("symbol"),
+    MARKET_VALUE("marketValue");
+
+    private final String value;
+
+    public static HoldingSort fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported holdings sort: " + value));
+    }
+}
@@ -0,0 +1,235 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.NettingConfig;
+import com.miowsis.portfolio.dto.SellOrderRequest;
+import com.miowsis.portfolio.dto.TransactionDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Collects buys and sells per symbol into short micro-batches. Each batch is priced once and every
+// order is allocated to its holding at the shared batch price in its own transaction. Allocations run
+// in parallel on the allocator pool, so a busy symbol's batch is not worked through one order at a time.
+// Netting is accounting only: this service sends nothing to a market, so the residual is measured
+// (portfolio.netting.shares) but never executed, and the batch saves no database work. Allocating a
+// batch in one transaction would let a single rejected order roll back everyone else's.
+@Component
+@Slf4j
+public class NettingEngine {
+    
+    private final PortfolioService portfolioService;
+    private final MarketDataService marketDataService;
+    private final NettingConfig config;
+    
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor allocators;
+    
+    private final DistributionSummary batchSize;
+    private final Counter grossShares;
+    private final Counter residualShares;
+    
+    public NettingEngine(PortfolioService portfolioService, MarketDataService marketDataService,
+                         NettingConfig config, MeterRegistry meterRegistry, WorkerThreads workerThreads) {
+        this.portfolioService = portfolioService;
+        this.marketDataService = marketDataService;
+        this.config = config;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "netting-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.allocators = new ThreadPoolExecutor(config.getAllocationThreads(), config.getAllocationThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(config.getAllocationQueueCapacity()),
+                workerThreads.named("netting-allocator-"));
+        this.batchSize = DistributionSummary.builder("portfolio.netting.batch.size")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.grossShares = meterRegistry.counter("portfolio.netting.shares", "kind", "gross");
+        this.residualShares = meterRegistry.counter("portfolio.netting.shares", "kind", "residual");
+    }
+    
+    // Blocks the caller for at most order-timeout, longer only once its order is executing; executes directly
+    // when netting is off
+    public TransactionDto buy(OrderCommand command) {
+        if (!config.isEnabled()) {
+            return portfolioService.executeBuyOrder(command);
+        }
+        Order order = new Order(command.userId(), command, null);
+        submit(command.symbol(), order);
+        return await(order);
+    }
+    
+    public TransactionDto sell(UUID userId, SellOrderRequest request) {
+        if (!config.isEnabled()) {
+            return portfolioService.executeSellOrder(userId, request);
+        }
+        Order order = new Order(userId, null, request);
+        submit(request.getSymbol(), order);
+        return await(order);
+    }
+    
+    private void submit(String symbol, Order order) {
+        openBatches.compute(symbol, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch(symbol);
+                Batch scheduled = batch;
+                timer.schedule(() -> closeOnTimer(scheduled), config.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.orders.add(order);
+            if (batch.orders.size() >= config.getMaxBatchSize()) {
+                // Full: detach it now rather than waiting for the timer
+                dispatch(batch);
+                return null;
+            }
+            return batch;
+        });
+    }
+    
+    private void closeOnTimer(Batch batch) {
+        // A batch already dispatched for being full is no longer mapped and is skipped here
+        if (openBatches.remove(batch.symbol, batch)) {
+            dispatch(batch);
+        }
+    }
+    
+    private void dispatch(Batch batch) {
+        try {
+            allocators.execute(() -> execute(batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("Allocation queue full, rejecting {} orders in {}", batch.orders.size(), batch.symbol);
+            ResponseStatusException busy = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Order queue is full, please retry");
+            batch.orders.forEach(order -> order.result.completeExceptionally(busy));
+        }
+    }
+    
+    private void execute(Batch batch) {
+        batchSize.record(batch.orders.size());
+        BigDecimal price;
+        try {
+            price = marketDataService.getCurrentPrice(batch.symbol);
+        } catch (RuntimeException e) {
+            batch.orders.forEach(order -> order.result.completeExceptionally(e));
+            return;
+        }
+        
+        BigDecimal bought = BigDecimal.ZERO;
+        BigDecimal sold = BigDecimal.ZERO;
+        for (Order order : batch.orders) {
+            if (order.buy != null) {
+                bought = bought.add(order.buy.amount().divide(price, 8, RoundingMode.DOWN));
+            } else {
+                sold = sold.add(order.sell.getShares());
+            }
+        }
+        // Recorded for the metrics only; there is no residual execution to hand it to
+        BigDecimal residual = bought.subtract(sold);
+        grossShares.increment(bought.add(sold).doubleValue());
+        residualShares.increment(residual.abs().doubleValue());
+        log.debug("Netted {} orders in {} at {}: bought {}, sold {}, residual {}",
+                batch.orders.size(), batch.symbol, price, bought, sold, residual);
+        
+        // Each order still passes its own funds and share checks; one rejection does not affect the others
+        for (Order order : batch.orders) {
+            try {
+                allocators.execute(() -> allocate(order, price));
+            } catch (RejectedExecutionException e) {
+                // Already priced and netted, so finish it here rather than turn it away
+                allocate(order, price);
+            }
+        }
+    }
+    
+    private void allocate(Order order, BigDecimal price) {
+        if (!order.claimed.compareAndSet(false, true)) {
+            return; // The caller timed out and the order was dropped
+        }
+        try {
+            TransactionDto transaction = order.buy != null
+                    ? portfolioService.executeBuyOrder(order.buy.toBuilder().price(price).build())
+                    : portfolioService.executeSellOrder(order.userId, order.sell, price);
+            order.result.complete(transaction);
+        } catch (RuntimeException e) {
+            order.result.completeExceptionally(e);
+        }
+    }
+    
+    private TransactionDto await(Order order) {
+        try {
+            return order.result.get(config.getOrderTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (order.claimed.compareAndSet(false, true)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Order was not executed in time, please retry");
+            }
+            // Already allocating; its single transaction decides the outcome
+            return join(order.result);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for order", e);
+        }
+    }
+    
+    private static TransactionDto join(CompletableFuture<TransactionDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+        allocators.shutdown();
+    }
+    
+    // claimed is set by whichever comes first: the allocator starting the order, or its caller giving up
+    private record Order(UUID userId, OrderCommand buy, SellOrderRequest sell,
+                         CompletableFuture<TransactionDto> result, AtomicBoolean claimed) {
+        private Order(UUID userId, OrderCommand buy, SellOrderRequest sell) {
+            this(userId, buy, sell, new CompletableFuture<>(), new AtomicBoolean());
+        }
+    }
+    
+    private static final class Batch {
+        private final String symbol;
+        private final List<Order> orders = new ArrayList<>();
+        
+        private Batch(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+}
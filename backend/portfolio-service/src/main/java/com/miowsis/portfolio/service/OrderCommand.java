@@ -0,0 +1,35 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.dto.BuyOrderRequest;
+import com.miowsis.portfolio.entity.Transaction.TransactionSource;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Internal buy order. Besides what the public BuyOrderRequest carries, it records where the order came
+// from so the transaction row is written complete in a single insert.
+@Builder(toBuilder = true)
+public record OrderCommand(
+        UUID userId,
+        String symbol,
+        BigDecimal amount,
+        String orderType,
+        // Execution price when already fixed by the caller; null prices at market
+        BigDecimal price,
+        TransactionSource source,
+        BigDecimal roundUpAmount,
+        BigDecimal originalPurchaseAmount,
+        String merchantName,
+        String notes) {
+
+    public static OrderCommand manual(UUID userId, BuyOrderRequest request) {
+        return OrderCommand.builder()
+                .userId(userId)
+                .symbol(request.getSymbol())
+                .amount(request.getAmount())
+                .orderType(request.getOrderType())
+                .source(TransactionSource.MANUAL)
+                .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.PortfolioHistoryConfig;
+import com.miowsis.portfolio.entity.Portfolio;
+import com.miowsis.portfolio.entity.PortfolioValueBlock;
+import com.miowsis.portfolio.entity.PortfolioValueBlock.Resolution;
+import com.miowsis.portfolio.repository.HoldingRepository;
+import com.miowsis.portfolio.repository.HoldingRepository.Position;
+import com.miowsis.portfolio.repository.PortfolioRepository;
+import com.miowsis.portfolio.repository.PortfolioValueBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Portfolio valuations over time. Scheduled jobs value every active portfolio in chunks and append
+// the result to encoded blocks: intraday points, daily closes, and weekly closes as the long-range
+// rollup. Reads fetch only the blocks covering the requested period at its rollup resolution.
+@Service
+@Slf4j
+public class PortfolioHistoryService {
+    
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 3600;
+    
+    private final PortfolioRepository portfolioRepository;
+    private final HoldingRepository holdingRepository;
+    private final PortfolioValueBlockRepository blockRepository;
+    private final MarketDataService marketDataService;
+    private final ReturnStatisticsService returnStatisticsService;
+    private final PortfolioHistoryConfig config;
+    private final TransactionTemplate transactionTemplate;
+    
+    public PortfolioHistoryService(PortfolioRepository portfolioRepository,
+                                   HoldingRepository holdingRepository,
+                                   PortfolioValueBlockRepository blockRepository,
+                                   MarketDataService marketDataService,
+                                   ReturnStatisticsService returnStatisticsService,
+                                   PortfolioHistoryConfig config,
+                                   PlatformTransactionManager transactionManager) {
+        this.portfolioRepository = portfolioRepository;
+        this.holdingRepository = holdingRepository;
+        this.blockRepository = blockRepository;
+        this.marketDataService = marketDataService;
+        this.returnStatisticsService = returnStatisticsService;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Scheduled(cron = "${portfolio.history.intraday-cron:0 */15 * * * *}", zone = "UTC")
+    public void recordIntraday() {
+        snapshotAll(Instant.now(), false);
+    }
+    
+    // After the US close; also rolls the close into the daily and weekly series
+    @Scheduled(cron = "${portfolio.history.daily-cron:0 30 21 * * MON-FRI}", zone = "UTC")
+    public void recordDailyClose() {
+        snapshotAll(Instant.now(), true);
+    }
+    
+    @Scheduled(cron = "${portfolio.history.retention-cron:0 0 3 * * *}", zone = "UTC")
+    public void pruneIntraday() {
+        LocalDate before = LocalDate.now(ZoneOffset.UTC).minusDays(config.getIntradayRetention().toDays());
+        Integer removed = transactionTemplate.execute(status -> blockRepository.deleteOlderThan(Resolution.INTRADAY, before));
+        log.info("Pruned {} intraday value blocks before {}", removed, before);
+    }
+    
+    public ValueSeries load(UUID portfolioId, HistoryPeriod period) {
+        LocalDate from = period.start(LocalDate.now(ZoneOffset.UTC));
+        Resolution resolution = period.getResolution();
+        
+        ValueSeries series = ValueSeries.EMPTY;
+        for (PortfolioValueBlock block : blockRepository
+                .findByPortfolioIdAndResolutionAndBlockStartGreaterThanEqualOrderByBlockStart(
+                        portfolioId, resolution, blockStart(resolution, from))) {
+            series = series.concat(ValueSeriesCodec.decode(block.getPayload()));
+        }
+        return series.since(from.atStartOfDay(ZoneOffset.UTC).toEpochSecond());
+    }
+    
+    // Sampling frequency of a resolution, for annualizing return and volatility
+    public double periodsPerYear(Resolution resolution) {
+        return switch (resolution) {
+            case INTRADAY -> SECONDS_PER_YEAR / config.getIntradayInterval().toSeconds();
+            case DAILY -> 252;
+            case WEEKLY -> 52;
+        };
+    }
+    
+    private void snapshotAll(Instant now, boolean close) {
+        LocalDate today = now.atZone(ZoneOffset.UTC).toLocalDate();
+        long interval = config.getIntradayInterval().toSeconds();
+        long intradayTimestamp = now.getEpochSecond() / interval * interval;
+        long dayTimestamp = today.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        long weekTimestamp = today.with(DayOfWeek.MONDAY).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        
+        // One quote per symbol for the whole run
+        Map<String, BigDecimal> prices = new HashMap<>();
+        UUID after = FIRST_ID;
+        int valued = 0;
+        List<Portfolio> chunk;
+        do {
+            chunk = portfolioRepository.findActiveAfter(after, PageRequest.ofSize(config.getBatchSize()));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Map<UUID, Long> valuations = value(chunk, prices);
+            transactionTemplate.executeWithoutResult(status -> {
+                append(valuations, Resolution.INTRADAY, today, intradayTimestamp);
+                if (close) {
+                    append(valuations, Resolution.DAILY, today, dayTimestamp);
+                    append(valuations, Resolution.WEEKLY, today, weekTimestamp);
+                    returnStatisticsService.recordClose(valuations, today, dayTimestamp);
+                }
+            });
+            valued += valuations.size();
+            after = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == config.getBatchSize());
+        
+        log.info("Recorded {} portfolio valuations{}", valued, close ? " with daily close" : "");
+    }
+    
+    private Map<UUID, Long> value(List<Portfolio> portfolios, Map<String, BigDecimal> prices) {
+        Map<UUID, BigDecimal> totals = new LinkedHashMap<>();
+        for (Portfolio portfolio : portfolios) {
+            totals.put(portfolio.getId(), portfolio.getCashBalance() != null ? portfolio.getCashBalance() : BigDecimal.ZERO);
+        }
+        for (Position position : holdingRepository.findPositions(totals.keySet())) {
+            BigDecimal price = prices.computeIfAbsent(position.getSymbol(), marketDataService::getCurrentPrice);
+            totals.merge(position.getPortfolioId(), position.getShares().multiply(price), BigDecimal::add);
+        }
+        
+        Map<UUID, Long> valuations = new LinkedHashMap<>();
+        totals.forEach((id, total) -> valuations.put(id, ValueSeries.toFixedPoint(total)));
+        return valuations;
+    }
+    
+    private void append(Map<UUID, Long> valuations, Resolution resolution, LocalDate day, long timestamp) {
+        LocalDate blockStart = blockStart(resolution, day);
+        Map<UUID, PortfolioValueBlock> blocks = blockRepository
+                .lockBlocks(valuations.keySet(), resolution, blockStart).stream()
+                .collect(Collectors.toMap(PortfolioValueBlock::getPortfolioId, Function.identity()));
+        
+        List<PortfolioValueBlock> created = new ArrayList<>();
+        valuations.forEach((portfolioId, value) -> {
+            PortfolioValueBlock block = blocks.get(portfolioId);
+            if (block == null) {
+                block = PortfolioValueBlock.builder()
+                        .portfolioId(portfolioId)
+                        .resolution(resolution)
+                        .blockStart(blockStart)
+                        .build();
+                created.add(block);
+            }
+            ValueSeries series = ValueSeriesCodec.decode(block.getPayload()).append(timestamp, value);
+            block.setPayload(ValueSeriesCodec.encode(series));
+            block.setPointCount(series.size());
+        });
+        // Existing blocks are managed and flush on commit
+        blockRepository.saveAll(created);
+    }
+    
+    private static LocalDate blockStart(Resolution resolution, LocalDate day) {
+        return switch (resolution) {
+            case INTRADAY -> day;
+            case DAILY -> day.withDayOfMonth(1);
+            case WEEKLY -> day.withDayOfYear(1);
+        };
+    }
+}
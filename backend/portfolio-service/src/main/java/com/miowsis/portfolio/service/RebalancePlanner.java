@@ -0,0 +1,96 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.RebalanceConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// Pure drift and trade computation for one portfolio; safe to call from many threads at once
+@Component
+@RequiredArgsConstructor
+public class RebalancePlanner {
+    
+    private final RebalanceConfig config;
+    
+    public RebalancePlan plan(UUID portfolioId, UUID userId, BigDecimal cash, Map<String, BigDecimal> shares,
+                              Map<String, BigDecimal> targets, Map<String, BigDecimal> prices) {
+        Map<String, BigDecimal> values = new HashMap<>();
+        BigDecimal total = cash;
+        for (Map.Entry<String, BigDecimal> position : shares.entrySet()) {
+            BigDecimal value = position.getValue().multiply(prices.get(position.getKey()));
+            values.put(position.getKey(), value);
+            total = total.add(value);
+        }
+        if (total.signum() <= 0) {
+            return new RebalancePlan(portfolioId, userId, BigDecimal.ZERO, List.of());
+        }
+        
+        TreeSet<String> symbols = new TreeSet<>(targets.keySet());
+        symbols.addAll(shares.keySet());
+        BigDecimal drift = BigDecimal.ZERO;
+        for (String symbol : symbols) {
+            BigDecimal weight = values.getOrDefault(symbol, BigDecimal.ZERO).divide(total, 6, RoundingMode.HALF_UP);
+            drift = drift.max(weight.subtract(targets.getOrDefault(symbol, BigDecimal.ZERO)).abs());
+        }
+        if (drift.compareTo(config.getDriftThreshold()) < 0) {
+            return new RebalancePlan(portfolioId, userId, drift, List.of());
+        }
+        
+        List<Trade> sells = new ArrayList<>();
+        List<Trade> buys = new ArrayList<>();
+        BigDecimal available = cash;
+        BigDecimal wanted = BigDecimal.ZERO;
+        for (String symbol : symbols) {
+            BigDecimal price = prices.get(symbol);
+            BigDecimal target = total.multiply(targets.getOrDefault(symbol, BigDecimal.ZERO));
+            BigDecimal difference = target.subtract(values.getOrDefault(symbol, BigDecimal.ZERO));
+            if (difference.abs().compareTo(config.getMinTradeAmount()) < 0) {
+                continue;
+            }
+            if (difference.signum() < 0) {
+                BigDecimal sellShares = difference.negate().divide(price, 8, RoundingMode.DOWN)
+                        .min(shares.getOrDefault(symbol, BigDecimal.ZERO));
+                BigDecimal proceeds = sellShares.multiply(price).setScale(4, RoundingMode.DOWN);
+                sells.add(new Trade(symbol, false, sellShares, proceeds));
+                available = available.add(proceeds);
+            } else {
+                BigDecimal amount = difference.setScale(4, RoundingMode.DOWN);
+                buys.add(new Trade(symbol, true, amount.divide(price, 8, RoundingMode.DOWN), amount));
+                wanted = wanted.add(amount);
+            }
+        }
+        
+        // Rounding and skipped small sells can leave buys slightly larger than the cash they free up
+        if (wanted.compareTo(available) > 0 && wanted.signum() > 0) {
+            BigDecimal scale = available.divide(wanted, 8, RoundingMode.DOWN);
+            buys.replaceAll(trade -> {
+                BigDecimal amount = trade.amount().multiply(scale).setScale(4, RoundingMode.DOWN);
+                return new Trade(trade.symbol(), true, amount.divide(prices.get(trade.symbol()), 8, RoundingMode.DOWN), amount);
+            });
+        }
+        
+        List<Trade> trades = new ArrayList<>(sells);
+        trades.addAll(buys);
+        return new RebalancePlan(portfolioId, userId, drift, trades);
+    }
+    
+    public record RebalancePlan(UUID portfolioId, UUID userId, BigDecimal drift, List<Trade> trades) {
+        public boolean hasTrades() {
+            return !trades.isEmpty();
+        }
+    }
+    
+    public record Trade(String symbol, boolean buy, BigDecimal shares, BigDecimal amount) {
+        BigDecimal cashDelta() {
+            return buy ? amount.negate() : amount;
+        }
+    }
+}
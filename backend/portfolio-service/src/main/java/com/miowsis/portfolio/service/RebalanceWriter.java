@@ -0,0 +1,202 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.CashLedgerEntry;
+import com.miowsis.portfolio.entity.Holding;
+import com.miowsis.portfolio.entity.RebalanceRun;
+import com.miowsis.portfolio.entity.Transaction;
+import com.miowsis.portfolio.repository.HoldingRepository;
+import com.miowsis.portfolio.repository.PortfolioRepository;
+import com.miowsis.portfolio.repository.RebalanceRunRepository;
+import com.miowsis.portfolio.repository.TransactionRepository;
+import com.miowsis.portfolio.service.RebalancePlanner.RebalancePlan;
+import com.miowsis.portfolio.service.RebalancePlanner.Trade;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Applies rebalance plans one portfolio per transaction, taking locks in the same order as the order
+// path: the portfolio's holding rows first, then its transactions, then the portfolio row (fence and
+// cash) and finally its allocation row. A chunk therefore never holds more than one user's rows at a
+// time. The run checkpoint is advanced separately once the chunk's portfolios are written; it is also
+// a fence, so a worker whose run was taken over elsewhere stops at the next chunk.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RebalanceWriter {
+    
+    private final HoldingRepository holdingRepository;
+    private final TransactionRepository transactionRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final RebalanceRunRepository rebalanceRunRepository;
+    private final CashLedgerService cashLedgerService;
+    private final AllocationService allocationService;
+    private final CacheManager cacheManager;
+    
+    // Returns the number of orders written; 0 when the portfolio was skipped and nothing was changed
+    @Transactional
+    public int writePortfolio(UUID runId, LocalDateTime runStartedAt, RebalancePlan plan, Map<String, BigDecimal> prices) {
+        Map<String, Holding> positions = new HashMap<>();
+        for (Holding holding : holdingRepository.lockByPortfolioIdIn(List.of(plan.portfolioId()))) {
+            positions.put(holding.getSymbol(), holding);
+        }
+        // Re-checked against the locked holdings, since orders may have sold shares since planning
+        List<Trade> trades = executable(plan.trades(), positions, prices);
+        if (trades.isEmpty()) {
+            return 0;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Holding> changed = new ArrayList<>();
+        List<Holding> emptied = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        AllocationDelta allocation = new AllocationDelta();
+        for (Trade trade : trades) {
+            BigDecimal price = prices.get(trade.symbol());
+            Holding holding = positions.computeIfAbsent(trade.symbol(), symbol -> newHolding(plan.portfolioId(), symbol));
+            allocation.remove(holding);
+            if (trade.buy()) {
+                applyBuy(holding, trade, price);
+            } else {
+                applySell(holding, trade, price);
+            }
+            allocation.add(holding);
+            (holding.getShares().signum() == 0 ? emptied : changed).add(holding);
+            transactions.add(toTransaction(runId, plan, trade, price, now));
+        }
+        holdingRepository.saveAll(changed);
+        holdingRepository.deleteAll(emptied.stream().filter(holding -> holding.getId() != null).toList());
+        transactionRepository.saveAll(transactions);
+        
+        // Portfolio row from here on. A portfolio already rebalanced during this run (by a worker that
+        // adopted it, or before a resume) is left alone
+        if (portfolioRepository.markRebalancedBefore(plan.portfolioId(), now, runStartedAt) == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return 0;
+        }
+        // Cash may have been withdrawn since planning; skip the portfolio rather than fail the run
+        BigDecimal net = trades.stream().map(Trade::cashDelta).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (net.signum() < 0 && !cashLedgerService.tryDebit(plan.portfolioId(), net.negate(),
+                CashLedgerEntry.EntryType.REBALANCE, null)) {
+            log.warn("Skipping rebalance of portfolio {}: insufficient cash", plan.portfolioId());
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return 0;
+        }
+        if (net.signum() > 0) {
+            cashLedgerService.credit(plan.portfolioId(), net, CashLedgerEntry.EntryType.REBALANCE, null);
+        }
+        allocationService.apply(plan.portfolioId(), allocation);
+        
+        evictPortfolio(plan);
+        return transactions.size();
+    }
+    
+    // Moves the checkpoint from `from` to `to`; false if another worker already moved it or the run stopped
+    @Transactional
+    public boolean advance(UUID runId, UUID from, UUID to, int scanned, int rebalanced, int ordersWritten) {
+        RebalanceRun run = rebalanceRunRepository.lockById(runId)
+                .orElseThrow(() -> new IllegalArgumentException("Rebalance run not found: " + runId));
+        if (run.getStatus() != RebalanceRun.RunStatus.RUNNING || !from.equals(run.getLastPortfolioId())) {
+            return false;
+        }
+        run.setLastPortfolioId(to);
+        run.setPortfoliosScanned(run.getPortfoliosScanned() + scanned);
+        run.setPortfoliosRebalanced(run.getPortfoliosRebalanced() + rebalanced);
+        run.setOrdersWritten(run.getOrdersWritten() + ordersWritten);
+        rebalanceRunRepository.save(run);
+        return true;
+    }
+    
+    // Sells are capped at the shares currently held, and dropped when nothing is left to sell
+    static List<Trade> executable(List<Trade> trades, Map<String, Holding> positions, Map<String, BigDecimal> prices) {
+        List<Trade> executable = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            if (trade.buy()) {
+                executable.add(trade);
+                continue;
+            }
+            Holding holding = positions.get(trade.symbol());
+            BigDecimal held = holding != null ? holding.getShares() : BigDecimal.ZERO;
+            if (held.signum() <= 0) {
+                continue;
+            }
+            if (trade.shares().compareTo(held) <= 0) {
+                executable.add(trade);
+            } else {
+                BigDecimal proceeds = held.multiply(prices.get(trade.symbol())).setScale(4, RoundingMode.DOWN);
+                executable.add(new Trade(trade.symbol(), false, held, proceeds));
+            }
+        }
+        return executable;
+    }
+    
+    private Holding newHolding(UUID portfolioId, String symbol) {
+        return Holding.builder()
+                .portfolio(portfolioRepository.getReferenceById(portfolioId))
+                .symbol(symbol)
+                .shares(BigDecimal.ZERO)
+                .avgCost(BigDecimal.ZERO)
+                .totalCost(BigDecimal.ZERO)
+                .build();
+    }
+    
+    private static void applyBuy(Holding holding, Trade trade, BigDecimal price) {
+        BigDecimal shares = holding.getShares().add(trade.shares());
+        BigDecimal totalCost = holding.getTotalCost().add(trade.amount());
+        holding.setShares(shares);
+        holding.setTotalCost(totalCost);
+        holding.setAvgCost(totalCost.divide(shares, 4, RoundingMode.HALF_UP));
+        mark(holding, price);
+    }
+    
+    private static void applySell(Holding holding, Trade trade, BigDecimal price) {
+        BigDecimal shares = holding.getShares().subtract(trade.shares());
+        holding.setShares(shares);
+        holding.setTotalCost(holding.getAvgCost().multiply(shares).setScale(4, RoundingMode.HALF_UP));
+        mark(holding, price);
+    }
+    
+    private static void mark(Holding holding, BigDecimal price) {
+        holding.setCurrentPrice(price);
+        holding.setMarketValue(holding.getShares().multiply(price).setScale(4, RoundingMode.HALF_UP));
+        holding.setGainLoss(holding.getMarketValue().subtract(holding.getTotalCost()));
+    }
+    
+    private static Transaction toTransaction(UUID runId, RebalancePlan plan, Trade trade, BigDecimal price,
+                                             LocalDateTime executedAt) {
+        return Transaction.builder()
+                .userId(plan.userId())
+                .portfolioId(plan.portfolioId())
+                .transactionType(trade.buy() ? Transaction.TransactionType.BUY : Transaction.TransactionType.SELL)
+                .symbol(trade.symbol())
+                .shares(trade.shares())
+                .price(price)
+                .amount(trade.amount())
+                .fee(BigDecimal.ZERO)
+                .netAmount(trade.amount())
+                .source(Transaction.TransactionSource.REBALANCE)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .externalReferenceId(runId.toString())
+                .executedAt(executedAt)
+                .build();
+    }
+    
+    private void evictPortfolio(RebalancePlan plan) {
+        Cache cache = cacheManager.getCache("portfolios");
+        if (cache != null) {
+            cache.evict(plan.userId());
+        }
+    }
+}
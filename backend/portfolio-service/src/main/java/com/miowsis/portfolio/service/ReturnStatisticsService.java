@@ -0,0 +1,97 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.PortfolioReturnStats;
+import com.miowsis.portfolio.entity.PortfolioReturnStats.Scope;
+import com.miowsis.portfolio.repository.PortfolioReturnStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps RunningStats per portfolio up to date as daily closes are recorded, so performance for any
+// period is a merge of at most a few dozen stored monthly buckets instead of a pass over history.
+// Windows are rounded out to whole calendar months.
+@Service
+@RequiredArgsConstructor
+public class ReturnStatisticsService {
+    
+    private static final LocalDate ALL_BUCKET = LocalDate.EPOCH;
+    
+    private final PortfolioReturnStatsRepository statsRepository;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordClose(Map<UUID, Long> valuations, LocalDate day, long timestamp) {
+        LocalDate month = day.withDayOfMonth(1);
+        Map<UUID, PortfolioReturnStats> allRows = lock(valuations, Scope.ALL, ALL_BUCKET);
+        Map<UUID, PortfolioReturnStats> monthRows = lock(valuations, Scope.MONTH, month);
+        
+        List<PortfolioReturnStats> changed = new ArrayList<>(valuations.size() * 2);
+        valuations.forEach((portfolioId, value) -> {
+            PortfolioReturnStats allRow = allRows.get(portfolioId);
+            RunningStats all = allRow != null ? toStats(allRow) : RunningStats.empty();
+            
+            PortfolioReturnStats monthRow = monthRows.get(portfolioId);
+            // A new month continues from the last close on record
+            RunningStats current = monthRow != null ? toStats(monthRow) : RunningStats.continuing(all);
+            
+            all.add(timestamp, value);
+            current.add(timestamp, value);
+            changed.add(toRow(portfolioId, Scope.ALL, ALL_BUCKET, all));
+            changed.add(toRow(portfolioId, Scope.MONTH, month, current));
+        });
+        statsRepository.saveAll(changed);
+    }
+    
+    public RunningStats forPeriod(UUID portfolioId, HistoryPeriod period) {
+        if (period == HistoryPeriod.ALL) {
+            return statsRepository.findByPortfolioIdAndScopeAndBucketStart(portfolioId, Scope.ALL, ALL_BUCKET)
+                    .map(this::toStats)
+                    .orElseGet(RunningStats::empty);
+        }
+        LocalDate fromMonth = period.start(LocalDate.now(ZoneOffset.UTC)).withDayOfMonth(1);
+        RunningStats merged = RunningStats.empty();
+        for (PortfolioReturnStats bucket : statsRepository
+                .findByPortfolioIdAndScopeAndBucketStartGreaterThanEqualOrderByBucketStart(portfolioId, Scope.MONTH, fromMonth)) {
+            merged = merged.merge(toStats(bucket));
+        }
+        return merged;
+    }
+    
+    private Map<UUID, PortfolioReturnStats> lock(Map<UUID, Long> valuations, Scope scope, LocalDate bucket) {
+        return statsRepository.lockBuckets(valuations.keySet(), scope, bucket).stream()
+                .collect(Collectors.toMap(PortfolioReturnStats::getPortfolioId, Function.identity()));
+    }
+    
+    private RunningStats toStats(PortfolioReturnStats row) {
+        return new RunningStats(row.getReturnCount(), row.getMeanReturn(), row.getM2(),
+                row.getOpenTimestamp(), row.getOpenValue(), row.getLastTimestamp(), row.getLastValue(),
+                row.getPeakValue(), row.getTroughValue(), row.getMaxDrawdown(), false);
+    }
+    
+    private PortfolioReturnStats toRow(UUID portfolioId, Scope scope, LocalDate bucket, RunningStats stats) {
+        return PortfolioReturnStats.builder()
+                .portfolioId(portfolioId)
+                .scope(scope)
+                .bucketStart(bucket)
+                .returnCount(stats.getCount())
+                .meanReturn(stats.getMean())
+                .m2(stats.getM2())
+                .openTimestamp(stats.getOpenTimestamp())
+                .openValue(stats.getOpenValue())
+                .lastTimestamp(stats.getLastTimestamp())
+                .lastValue(stats.getLastValue())
+                .peakValue(stats.getPeak())
+                .troughValue(stats.getTrough())
+                .maxDrawdown(stats.getMaxDrawdown())
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.RoundUpConfig;
+import com.miowsis.portfolio.dto.BulkRoundUpResultDto;
+import com.miowsis.portfolio.dto.BulkRoundUpResultDto.RejectedEvent;
+import com.miowsis.portfolio.dto.RoundUpEventDto;
+import com.miowsis.portfolio.dto.RoundUpEntryDto;
+import com.miowsis.portfolio.dto.RoundUpRequest;
+import com.miowsis.portfolio.dto.TransactionDto;
+import com.miowsis.portfolio.entity.RoundUpEntry;
+import com.miowsis.portfolio.entity.Transaction;
+import com.miowsis.portfolio.repository.RoundUpEntryRepository;
+import com.miowsis.portfolio.repository.RoundUpLedgerWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoundUpService {
+    
+    private final RoundUpEntryRepository roundUpEntryRepository;
+    private final PortfolioService portfolioService;
+    private final RoundUpLedgerWriter ledgerWriter;
+    private final Validator validator;
+    private final RoundUpConfig config;
+    
+    // A round-up is a single ledger insert; the money is invested later by the sweeper
+    @Transactional
+    public RoundUpEntryDto recordRoundUp(UUID userId, RoundUpRequest request) {
+        RoundUpEntry entry = roundUpEntryRepository.save(newEntry(
+                userId, request.getPurchaseAmount(), request.getTargetSymbol(), request.getMerchantName()));
+        return toDto(entry);
+    }
+    
+    // Bulk path for partner feeds and the card-round-ups topic. Events are validated in parallel,
+    // ordered by user and written with JDBC batch inserts; already-seen idempotency keys are skipped.
+    @Transactional
+    public BulkRoundUpResultDto ingest(List<RoundUpEventDto> events) {
+        List<String> errors = IntStream.range(0, events.size())
+                .parallel()
+                .mapToObj(i -> validate(events.get(i)))
+                .toList();
+        
+        List<RoundUpEntry> entries = new ArrayList<>(events.size());
+        List<RejectedEvent> rejected = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < events.size(); i++) {
+            RoundUpEventDto event = events.get(i);
+            if (errors.get(i) != null) {
+                rejected.add(new RejectedEvent(i, event != null ? event.getIdempotencyKey() : null, errors.get(i)));
+                continue;
+            }
+            RoundUpEntry entry = newEntry(event.getUserId(), event.getPurchaseAmount(),
+                    event.getTargetSymbol(), event.getMerchantName());
+            entry.setId(UUID.randomUUID());
+            entry.setIdempotencyKey(event.getIdempotencyKey());
+            entry.setCreatedAt(now);
+            entries.add(entry);
+        }
+        
+        entries.sort(Comparator.comparing(RoundUpEntry::getUserId));
+        int inserted = entries.isEmpty() ? 0 : ledgerWriter.insertAll(entries);
+        
+        return BulkRoundUpResultDto.builder()
+                .received(events.size())
+                .accepted(inserted)
+                .duplicates(entries.size() - inserted)
+                .rejected(rejected)
+                .build();
+    }
+    
+    // Invests everything pending for one user and symbol as a single buy. The entries are row-locked
+    // so an overlapping sweep on another instance waits and then finds nothing left to do.
+    @Transactional
+    public Optional<TransactionDto> sweep(UUID userId, String symbol, BigDecimal price) {
+        List<RoundUpEntry> pending = roundUpEntryRepository.lockPending(userId, symbol);
+        if (pending.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal purchases = BigDecimal.ZERO;
+        for (RoundUpEntry entry : pending) {
+            total = total.add(entry.getRoundUpAmount());
+            purchases = purchases.add(entry.getOriginalPurchaseAmount());
+        }
+        
+        TransactionDto transaction = portfolioService.executeBuyOrder(OrderCommand.builder()
+                .userId(userId)
+                .symbol(symbol)
+                .amount(total)
+                .orderType("MARKET")
+                .price(price)
+                .source(Transaction.TransactionSource.ROUND_UP)
+                .roundUpAmount(total)
+                .originalPurchaseAmount(purchases)
+                .merchantName(pending.size() == 1 ? pending.get(0).getMerchantName() : null)
+                .notes("Swept " + pending.size() + " round-ups")
+                .build());
+        
+        roundUpEntryRepository.markSwept(pending.stream().map(RoundUpEntry::getId).toList(),
+                UUID.fromString(transaction.getId()), LocalDateTime.now());
+        
+        log.debug("Swept {} round-ups totalling {} into {} for user {}", pending.size(), total, symbol, userId);
+        return Optional.of(transaction);
+    }
+    
+    // Pushes a bucket's next sweep back after a failed buy; the delay doubles with each failure
+    @Transactional
+    public LocalDateTime deferSweep(UUID userId, String symbol, int failedAttempts) {
+        Duration delay = config.getRetryBackoff().multipliedBy(1L << Math.min(failedAttempts - 1, 16));
+        if (delay.compareTo(config.getMaxRetryBackoff()) > 0) {
+            delay = config.getMaxRetryBackoff();
+        }
+        LocalDateTime nextSweepAt = LocalDateTime.now().plus(delay);
+        roundUpEntryRepository.deferPending(userId, symbol, failedAttempts, nextSweepAt);
+        return nextSweepAt;
+    }
+    
+    private RoundUpEntry newEntry(UUID userId, BigDecimal purchaseAmount, String targetSymbol, String merchantName) {
+        BigDecimal roundUpAmount = purchaseAmount.setScale(0, RoundingMode.CEILING).subtract(purchaseAmount);
+        
+        if (roundUpAmount.compareTo(BigDecimal.ZERO) == 0) {
+            roundUpAmount = BigDecimal.ONE; // Always invest at least $1
+        }
+        
+        return RoundUpEntry.builder()
+                .userId(userId)
+                .targetSymbol(targetSymbol != null ? targetSymbol : config.getDefaultSymbol())
+                .roundUpAmount(roundUpAmount)
+                .originalPurchaseAmount(purchaseAmount)
+                .merchantName(merchantName)
+                .status(RoundUpEntry.RoundUpStatus.PENDING)
+                .build();
+    }
+    
+    // Null when the event is valid
+    private String validate(RoundUpEventDto event) {
+        if (event == null) {
+            return "Event must not be null";
+        }
+        Set<ConstraintViolation<RoundUpEventDto>> violations = validator.validate(event);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+    
+    private RoundUpEntryDto toDto(RoundUpEntry entry) {
+        return RoundUpEntryDto.builder()
+                .id(entry.getId().toString())
+                .userId(entry.getUserId().toString())
+                .targetSymbol(entry.getTargetSymbol())
+                .roundUpAmount(entry.getRoundUpAmount())
+                .originalPurchaseAmount(entry.getOriginalPurchaseAmount())
+                .merchantName(entry.getMerchantName())
+                .status(entry.getStatus().name())
+                .createdAt(entry.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.config.RoundUpConfig;
+import com.miowsis.portfolio.repository.RoundUpEntryRepository;
+import com.miowsis.portfolio.repository.RoundUpEntryRepository.PendingRoundUps;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoundUpSweeper {
+    
+    private final RoundUpEntryRepository roundUpEntryRepository;
+    private final RoundUpService roundUpService;
+    private final MarketDataService marketDataService;
+    private final RoundUpConfig config;
+    
+    @Scheduled(fixedDelayString = "${portfolio.round-up.sweep-interval:60000}")
+    public void sweepDueRoundUps() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingRoundUps> due = roundUpEntryRepository.findSweepCandidates(
+                config.getSweepThreshold(),
+                now.minus(config.getMaxAge()),
+                now,
+                PageRequest.ofSize(config.getMaxSweepsPerRun()));
+        
+        // Buckets sharing a symbol (most of them default to the same ETF) are filled at one price per run
+        Map<String, BigDecimal> prices = new HashMap<>();
+        int swept = 0;
+        for (PendingRoundUps bucket : due) {
+            // Each bucket commits on its own so one failing user does not hold back the rest
+            try {
+                BigDecimal price = prices.computeIfAbsent(bucket.getTargetSymbol(), marketDataService::getCurrentPrice);
+                if (roundUpService.sweep(bucket.getUserId(), bucket.getTargetSymbol(), price).isPresent()) {
+                    swept++;
+                }
+            } catch (RuntimeException e) {
+                defer(bucket, e);
+            }
+        }
+        if (swept > 0) {
+            log.info("Swept {} of {} due round-up buckets", swept, due.size());
+        }
+    }
+    
+    // Backs the bucket off so it stops failing every run and crowding out buckets that can be swept
+    private void defer(PendingRoundUps bucket, RuntimeException cause) {
+        int attempts = bucket.getAttempts() + 1;
+        try {
+            LocalDateTime nextSweepAt = roundUpService.deferSweep(bucket.getUserId(), bucket.getTargetSymbol(), attempts);
+            log.warn("Round-up sweep failed for user {} symbol {} (attempt {}), retrying after {}: {}",
+                    bucket.getUserId(), bucket.getTargetSymbol(), attempts, nextSweepAt, cause.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Round-up sweep failed for user {} symbol {} and could not be deferred: {}",
+                    bucket.getUserId(), bucket.getTargetSymbol(), cause.getMessage(), e);
+        }
+    }
+}
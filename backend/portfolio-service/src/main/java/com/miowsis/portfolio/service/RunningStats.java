@@ -0,0 +1,125 @@
+package com.miowsis.portfolio.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Incremental return statistics over a run of valuations: Welford mean/M2 of period returns, the
+// opening and latest value for total return, and peak/trough for maximum drawdown. Two runs that
+// follow each other merge exactly (Chan et al.), so a long window is a merge of a few stored buckets.
+@Getter
+@AllArgsConstructor
+public final class RunningStats {
+
+    private static final double SECONDS_PER_YEAR = 365.25 * 24 * 3600;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private long openTimestamp;
+    private long openValue;
+    private long lastTimestamp;
+    private long lastValue;
+    private long peak;
+    private long trough;
+    private double maxDrawdown;
+    private boolean empty;
+
+    public static RunningStats empty() {
+        return new RunningStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, true);
+    }
+
+    // Starts a new bucket from the previous close, so its first return is measured against it
+    public static RunningStats continuing(RunningStats previous) {
+        if (previous.empty) {
+            return empty();
+        }
+        long close = previous.lastValue;
+        long at = previous.lastTimestamp;
+        return new RunningStats(0, 0, 0, at, close, at, close, close, close, 0, false);
+    }
+
+    public static RunningStats of(ValueSeries series) {
+        RunningStats stats = empty();
+        for (int i = 0; i < series.size(); i++) {
+            stats.add(series.timestamp(i), series.values()[i]);
+        }
+        return stats;
+    }
+
+    // Values at or before the last timestamp are ignored, which makes replayed closes harmless
+    public void add(long timestamp, long value) {
+        if (empty) {
+            openTimestamp = lastTimestamp = timestamp;
+            openValue = lastValue = peak = trough = value;
+            empty = false;
+            return;
+        }
+        if (timestamp <= lastTimestamp) {
+            return;
+        }
+        if (lastValue > 0) {
+            double periodReturn = (double) value / lastValue - 1;
+            count++;
+            double delta = periodReturn - mean;
+            mean += delta / count;
+            m2 += delta * (periodReturn - mean);
+        }
+        lastTimestamp = timestamp;
+        lastValue = value;
+        peak = Math.max(peak, value);
+        trough = Math.min(trough, value);
+        if (peak > 0) {
+            maxDrawdown = Math.max(maxDrawdown, (double) (peak - value) / peak);
+        }
+    }
+
+    // Combines this run with one that starts where it ended
+    public RunningStats merge(RunningStats later) {
+        if (empty) {
+            return later;
+        }
+        if (later.empty) {
+            return this;
+        }
+        long n = count + later.count;
+        double delta = later.mean - mean;
+        double mergedMean = n == 0 ? 0 : mean + delta * later.count / n;
+        double mergedM2 = n == 0 ? 0 : m2 + later.m2 + delta * delta * count * later.count / n;
+
+        // A drawdown can start at this run's peak and bottom out in the later one
+        double crossing = peak > 0 ? (double) (peak - later.trough) / peak : 0;
+        double drawdown = Math.max(Math.max(maxDrawdown, later.maxDrawdown), Math.max(0, crossing));
+
+        return new RunningStats(n, mergedMean, mergedM2, openTimestamp, openValue,
+                later.lastTimestamp, later.lastValue, Math.max(peak, later.peak), Math.min(trough, later.trough),
+                drawdown, false);
+    }
+
+    public double variance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    public double totalReturn() {
+        return openValue > 0 ? (double) lastValue / openValue - 1 : 0;
+    }
+
+    public double annualizedReturn() {
+        double years = (lastTimestamp - openTimestamp) / SECONDS_PER_YEAR;
+        if (openValue <= 0 || years <= 0) {
+            return 0;
+        }
+        return Math.pow((double) lastValue / openValue, 1 / years) - 1;
+    }
+
+    public double volatility(double periodsPerYear) {
+        return Math.sqrt(variance() * periodsPerYear);
+    }
+
+    public double sharpeRatio(double periodsPerYear, double riskFreeRate) {
+        double volatility = volatility(periodsPerYear);
+        if (volatility == 0) {
+            return 0;
+        }
+        return (mean * periodsPerYear - riskFreeRate) / volatility;
+    }
+}
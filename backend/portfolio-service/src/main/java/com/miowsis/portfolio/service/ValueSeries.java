@@ -0,0 +1,71 @@
+package com.miowsis.portfolio.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+// Time-ordered portfolio valuations: epoch seconds and fixed-point values in cents, kept as two
+// parallel columns. Instances are immutable; append returns a copy.
+public record ValueSeries(long[] timestamps, long[] values) {
+
+    public static final int VALUE_SCALE = 2;
+    public static final ValueSeries EMPTY = new ValueSeries(new long[0], new long[0]);
+
+    public ValueSeries {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("Timestamp and value columns differ in length");
+        }
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public BigDecimal value(int index) {
+        return BigDecimal.valueOf(values[index], VALUE_SCALE);
+    }
+
+    public static long toFixedPoint(BigDecimal value) {
+        return value.setScale(VALUE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // A point in the same bucket as the last one replaces it, so repeated snapshots are idempotent;
+    // points older than the last one are ignored
+    public ValueSeries append(long timestamp, long value) {
+        int size = size();
+        if (size > 0 && timestamp < timestamps[size - 1]) {
+            return this;
+        }
+        if (size > 0 && timestamp == timestamps[size - 1]) {
+            long[] replaced = values.clone();
+            replaced[size - 1] = value;
+            return new ValueSeries(timestamps, replaced);
+        }
+        long[] newTimestamps = Arrays.copyOf(timestamps, size + 1);
+        long[] newValues = Arrays.copyOf(values, size + 1);
+        newTimestamps[size] = timestamp;
+        newValues[size] = value;
+        return new ValueSeries(newTimestamps, newValues);
+    }
+
+    public ValueSeries concat(ValueSeries next) {
+        ValueSeries result = this;
+        for (int i = 0; i < next.size(); i++) {
+            result = result.append(next.timestamps[i], next.values[i]);
+        }
+        return result;
+    }
+
+    // Points at or after the given epoch second
+    public ValueSeries since(long epochSecond) {
+        int from = Arrays.binarySearch(timestamps, epochSecond);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        return new ValueSeries(Arrays.copyOfRange(timestamps, from, size()), Arrays.copyOfRange(values, from, size()));
+    }
+}
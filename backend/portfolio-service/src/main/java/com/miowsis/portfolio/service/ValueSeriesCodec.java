@@ -0,0 +1,93 @@
+package com.miowsis.portfolio.service;
+
+import java.io.ByteArrayOutputStream;
+
+// Compact block encoding for a ValueSeries. Layout: version byte, point count, then the timestamp
+// column as first value + deltas, then the value column as zigzag-encoded deltas, all as unsigned
+// LEB128 varints. A day of 15-minute points with steady timestamps and small value moves packs into
+// a few hundred bytes.
+public final class ValueSeriesCodec {
+
+    private static final int VERSION = 1;
+
+    private ValueSeriesCodec() {
+    }
+
+    public static byte[] encode(ValueSeries series) {
+        int size = series.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + size * 4);
+        out.write(VERSION);
+        writeVarLong(out, size);
+
+        long previous = 0;
+        for (long timestamp : series.timestamps()) {
+            if (timestamp < previous) {
+                throw new IllegalArgumentException("Timestamps must be ascending");
+            }
+            writeVarLong(out, timestamp - previous);
+            previous = timestamp;
+        }
+        previous = 0;
+        for (long value : series.values()) {
+            writeVarLong(out, zigzag(value - previous));
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    public static ValueSeries decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return ValueSeries.EMPTY;
+        }
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported value series version " + bytes[0]);
+        }
+        int[] position = {1};
+        int size = Math.toIntExact(readVarLong(bytes, position));
+
+        long[] timestamps = new long[size];
+        long[] values = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += readVarLong(bytes, position);
+            timestamps[i] = previous;
+        }
+        previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += unzigzag(readVarLong(bytes, position));
+            values[i] = previous;
+        }
+        return new ValueSeries(timestamps, values);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated value series");
+            }
+            byte b = bytes[position[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in value series");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.miowsis.portfolio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+// Thread factories for the service's own blocking worker pools (order partitions, netting allocators,
+// rebalance runners). They follow spring.threads.virtual.enabled like the request threads do; the pools
+// keep their sizes either way, so they still bound how much work holds a database connection at once.
+// CPU-bound pools such as rebalance planning and the netting timer stay on platform threads.
+@Component
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public ThreadFactory named(String prefix) {
+        // Only constructed when enabled, which Spring Boot honors on Java 21 only
+        return virtual
+                ? new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(prefix);
+    }
+}
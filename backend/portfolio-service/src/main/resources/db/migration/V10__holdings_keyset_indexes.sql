@@ -0,0 +1,6 @@
+-- Keyset pagination over a portfolio's holdings: by symbol, and by market value (largest first)
+CREATE INDEX IF NOT EXISTS idx_holdings_portfolio_symbol
+    ON holdings (portfolio_id, symbol);
+
+CREATE INDEX IF NOT EXISTS idx_holdings_portfolio_market_value
+    ON holdings (portfolio_id, (COALESCE(market_value, 0)) DESC, id);
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS round_up_ledger (
+    id                       UUID PRIMARY KEY,
+    user_id                  UUID           NOT NULL,
+    target_symbol            VARCHAR(20)    NOT NULL,
+    round_up_amount          NUMERIC(19, 4) NOT NULL,
+    original_purchase_amount NUMERIC(19, 4) NOT NULL,
+    merchant_name            VARCHAR(255),
+    status                   VARCHAR(20)    NOT NULL,
+    transaction_id           UUID,
+    created_at               TIMESTAMP      NOT NULL DEFAULT NOW(),
+    swept_at                 TIMESTAMP
+);
+
+-- Only pending rows are ever scanned by the sweeper, so keep the index to those
+CREATE INDEX IF NOT EXISTS idx_round_up_ledger_pending
+    ON round_up_ledger (user_id, target_symbol, created_at)
+    WHERE status = 'PENDING';
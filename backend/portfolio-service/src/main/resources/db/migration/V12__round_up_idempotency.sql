@@ -0,0 +1,5 @@
+ALTER TABLE round_up_ledger ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(128);
+
+-- NULLs are distinct, so round-ups recorded without a key are unaffected
+CREATE UNIQUE INDEX IF NOT EXISTS uq_round_up_ledger_idempotency_key
+    ON round_up_ledger (idempotency_key);
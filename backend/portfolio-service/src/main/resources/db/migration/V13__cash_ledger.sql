@@ -0,0 +1,28 @@
+CREATE TABLE IF NOT EXISTS cash_ledger (
+    id             UUID PRIMARY KEY,
+    portfolio_id   UUID           NOT NULL,
+    amount         NUMERIC(19, 4) NOT NULL,
+    entry_type     VARCHAR(20)    NOT NULL,
+    transaction_id UUID,
+    created_at     TIMESTAMP      NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_cash_ledger_portfolio_created
+    ON cash_ledger (portfolio_id, created_at);
+
+CREATE TABLE IF NOT EXISTS cash_balance_snapshots (
+    id              UUID PRIMARY KEY,
+    portfolio_id    UUID           NOT NULL,
+    balance         NUMERIC(19, 4) NOT NULL,
+    entries_through TIMESTAMP      NOT NULL,
+    taken_at        TIMESTAMP      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cash_balance_snapshots_portfolio
+    ON cash_balance_snapshots (portfolio_id, entries_through DESC);
+
+-- Existing balances become each portfolio's opening entry so the ledger sums to cash_balance
+INSERT INTO cash_ledger (id, portfolio_id, amount, entry_type, created_at)
+SELECT gen_random_uuid(), id, cash_balance, 'OPENING', NOW()
+FROM portfolios
+WHERE cash_balance IS NOT NULL AND cash_balance <> 0;
@@ -0,0 +1,4 @@
+-- Recovery sweep for accepted orders that were never executed
+CREATE INDEX IF NOT EXISTS idx_transactions_pending_created
+    ON transactions (created_at)
+    WHERE status = 'PENDING';
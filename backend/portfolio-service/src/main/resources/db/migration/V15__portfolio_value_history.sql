@@ -0,0 +1,25 @@
+-- Encoded valuation blocks (see ValueSeriesCodec), partitioned by resolution so the high-churn
+-- intraday data can be vacuumed, pruned or moved independently of the long-lived rollups
+CREATE TABLE IF NOT EXISTS portfolio_value_blocks (
+    portfolio_id UUID        NOT NULL,
+    resolution   VARCHAR(16) NOT NULL,
+    block_start  DATE        NOT NULL,
+    point_count  INTEGER     NOT NULL,
+    payload      BYTEA       NOT NULL,
+    updated_at   TIMESTAMP,
+    PRIMARY KEY (portfolio_id, resolution, block_start)
+) PARTITION BY LIST (resolution);
+
+CREATE TABLE IF NOT EXISTS portfolio_value_blocks_intraday
+    PARTITION OF portfolio_value_blocks FOR VALUES IN ('INTRADAY');
+
+CREATE TABLE IF NOT EXISTS portfolio_value_blocks_daily
+    PARTITION OF portfolio_value_blocks FOR VALUES IN ('DAILY');
+
+CREATE TABLE IF NOT EXISTS portfolio_value_blocks_weekly
+    PARTITION OF portfolio_value_blocks FOR VALUES IN ('WEEKLY');
+
+-- Payloads are already compact varints; skip TOAST compression attempts
+ALTER TABLE portfolio_value_blocks_intraday ALTER COLUMN payload SET STORAGE EXTERNAL;
+ALTER TABLE portfolio_value_blocks_daily ALTER COLUMN payload SET STORAGE EXTERNAL;
+ALTER TABLE portfolio_value_blocks_weekly ALTER COLUMN payload SET STORAGE EXTERNAL;
@@ -0,0 +1,17 @@
+-- Running return statistics per portfolio: one row per calendar month and one ALL row
+CREATE TABLE IF NOT EXISTS portfolio_return_stats (
+    portfolio_id   UUID             NOT NULL,
+    scope          VARCHAR(8)       NOT NULL,
+    bucket_start   DATE             NOT NULL,
+    return_count   BIGINT           NOT NULL,
+    mean_return    DOUBLE PRECISION NOT NULL,
+    m2             DOUBLE PRECISION NOT NULL,
+    open_timestamp BIGINT           NOT NULL,
+    open_value     BIGINT           NOT NULL,
+    last_timestamp BIGINT           NOT NULL,
+    last_value     BIGINT           NOT NULL,
+    peak_value     BIGINT           NOT NULL,
+    trough_value   BIGINT           NOT NULL,
+    max_drawdown   DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (portfolio_id, scope, bucket_start)
+);
@@ -0,0 +1,22 @@
+-- Batch rebalance runs; last_portfolio_id is the resume checkpoint
+CREATE TABLE IF NOT EXISTS rebalance_runs (
+    id                    UUID PRIMARY KEY,
+    portfolio_type        VARCHAR(20) NOT NULL,
+    status                VARCHAR(20) NOT NULL,
+    last_portfolio_id     UUID,
+    portfolios_scanned    BIGINT      NOT NULL DEFAULT 0,
+    portfolios_rebalanced BIGINT      NOT NULL DEFAULT 0,
+    orders_written        BIGINT      NOT NULL DEFAULT 0,
+    error_message         TEXT,
+    started_at            TIMESTAMP,
+    completed_at          TIMESTAMP,
+    updated_at            TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_rebalance_runs_status
+    ON rebalance_runs (status, updated_at);
+
+-- Chunked id-order walk over one portfolio type
+CREATE INDEX IF NOT EXISTS idx_portfolios_active_type_id
+    ON portfolios (portfolio_type, id)
+    WHERE is_active = true;
@@ -0,0 +1,11 @@
+-- Materialized allocation per portfolio, maintained alongside holding changes. Existing portfolios
+-- get their row on first trade or first allocation read.
+CREATE TABLE IF NOT EXISTS portfolio_allocations (
+    portfolio_id        UUID PRIMARY KEY,
+    total_value         NUMERIC(19, 4) NOT NULL,
+    sector_values       JSONB          NOT NULL DEFAULT '{}',
+    asset_type_values   JSONB          NOT NULL DEFAULT '{}',
+    esg_weighted_scores JSONB          NOT NULL DEFAULT '{}',
+    esg_scored_values   JSONB          NOT NULL DEFAULT '{}',
+    updated_at          TIMESTAMP
+);
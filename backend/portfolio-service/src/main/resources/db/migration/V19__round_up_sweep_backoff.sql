@@ -0,0 +1,3 @@
+-- A bucket whose buy fails (usually for lack of cash) is retried with backoff instead of every sweep
+ALTER TABLE round_up_ledger ADD COLUMN IF NOT EXISTS sweep_attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE round_up_ledger ADD COLUMN IF NOT EXISTS next_sweep_at TIMESTAMP;
@@ -0,0 +1,6 @@
+-- Buys and sells lock the (portfolio, symbol) holding row; the unique index covers the first buy of a
+-- symbol, where there is no row to lock yet and a concurrent duplicate insert must fail instead
+CREATE UNIQUE INDEX IF NOT EXISTS uq_holdings_portfolio_symbol
+    ON holdings (portfolio_id, symbol);
+
+DROP INDEX IF EXISTS idx_holdings_portfolio_symbol;
@@ -0,0 +1,2 @@
+-- Never read: portfolios.cash_balance is the balance, and cash_ledger its audit trail
+DROP TABLE IF EXISTS cash_balance_snapshots;
@@ -0,0 +1,4 @@
+-- At most one RUNNING run per portfolio type, also across instances starting runs at the same moment
+CREATE UNIQUE INDEX IF NOT EXISTS uq_rebalance_runs_running_type
+    ON rebalance_runs (portfolio_type)
+    WHERE status = 'RUNNING';
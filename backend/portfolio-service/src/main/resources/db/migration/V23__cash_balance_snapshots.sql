@@ -0,0 +1,18 @@
+-- Ledger position for snapshots. Sequence values are handed out at insert, not commit, so a snapshot
+-- is only taken while the portfolio row is locked: every cash writer updates that row before
+-- appending its entry, so no lower-numbered entry for the portfolio can still be in flight.
+ALTER TABLE cash_ledger ADD COLUMN IF NOT EXISTS seq BIGSERIAL;
+
+CREATE INDEX IF NOT EXISTS idx_cash_ledger_portfolio_seq
+    ON cash_ledger (portfolio_id, seq);
+
+CREATE TABLE IF NOT EXISTS cash_balance_snapshots (
+    id                  UUID PRIMARY KEY,
+    portfolio_id        UUID           NOT NULL,
+    balance             NUMERIC(19, 4) NOT NULL,
+    entries_through_seq BIGINT         NOT NULL,
+    taken_at            TIMESTAMP      NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cash_balance_snapshots_portfolio
+    ON cash_balance_snapshots (portfolio_id, entries_through_seq DESC);
@@ -0,0 +1,54 @@
+package com.miowsis.portfolio.service;
+
+import com.miowsis.portfolio.entity.Holding;
+import com.miowsis.portfolio.service.RebalancePlanner.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RebalanceWriterTest {
+
+    private static final Map<String, BigDecimal> PRICES = Map.of(
+            "VTI", new BigDecimal("200"), "BND", new BigDecimal("80"), "VXUS", new BigDecimal("50"));
+
+    @Test
+    void executable_shouldCapSellAtSharesHeldWhenOrdersSoldSincePlanning() {
+        // Planned against 10 shares, but an order sold 6 of them before the chunk was written
+        List<Trade> planned = List.of(
+                new Trade("VTI", false, new BigDecimal("8"), new BigDecimal("1600.0000")),
+                new Trade("BND", true, new BigDecimal("20"), new BigDecimal("1600.0000")));
+
+        List<Trade> trades = RebalanceWriter.executable(planned, Map.of("VTI", holding("VTI", "4")), PRICES);
+
+        assertEquals(2, trades.size());
+        Trade sell = trades.get(0);
+        assertEquals(0, new BigDecimal("4").compareTo(sell.shares()));
+        assertEquals(0, new BigDecimal("800").compareTo(sell.amount()));
+        assertEquals(planned.get(1), trades.get(1));
+    }
+
+    @Test
+    void executable_shouldDropSellOfPositionNoLongerHeld() {
+        List<Trade> planned = List.of(
+                new Trade("VXUS", false, new BigDecimal("5"), new BigDecimal("250.0000")),
+                new Trade("VTI", false, new BigDecimal("2"), new BigDecimal("400.0000")));
+
+        List<Trade> trades = RebalanceWriter.executable(planned,
+                Map.of("VXUS", holding("VXUS", "0"), "VTI", holding("VTI", "3")), PRICES);
+
+        assertEquals(List.of(planned.get(1)), trades);
+        assertTrue(trades.stream().allMatch(trade -> trade.shares().signum() > 0));
+    }
+
+    private static Holding holding(String symbol, String shares) {
+        return Holding.builder()
+                .symbol(symbol)
+                .shares(new BigDecimal(shares))
+                .build();
+    }
+}
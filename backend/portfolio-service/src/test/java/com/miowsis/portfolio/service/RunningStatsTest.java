@@ -0,0 +1,95 @@
+package com.miowsis.portfolio.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunningStatsTest {
+
+    private static final long DAY = 86_400;
+    private static final long[] CLOSES = {10_000, 10_200, 9_900, 9_500, 10_100, 10_400, 9_800, 10_600};
+
+    @Test
+    void add_shouldMatchTwoPassMeanAndVariance() {
+        RunningStats stats = RunningStats.empty();
+        for (int i = 0; i < CLOSES.length; i++) {
+            stats.add(i * DAY, CLOSES[i]);
+        }
+
+        double[] returns = new double[CLOSES.length - 1];
+        double sum = 0;
+        for (int i = 1; i < CLOSES.length; i++) {
+            returns[i - 1] = (double) CLOSES[i] / CLOSES[i - 1] - 1;
+            sum += returns[i - 1];
+        }
+        double mean = sum / returns.length;
+        double squares = 0;
+        for (double r : returns) {
+            squares += (r - mean) * (r - mean);
+        }
+
+        assertEquals(returns.length, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-12);
+        assertEquals(squares / (returns.length - 1), stats.variance(), 1e-12);
+        assertEquals(0.06, stats.totalReturn(), 1e-12);
+    }
+
+    @Test
+    void add_shouldTrackMaxDrawdownFromRunningPeak() {
+        RunningStats stats = RunningStats.empty();
+        for (int i = 0; i < CLOSES.length; i++) {
+            stats.add(i * DAY, CLOSES[i]);
+        }
+
+        // Peak 10_200 down to 9_500
+        assertEquals(700.0 / 10_200, stats.getMaxDrawdown(), 1e-12);
+    }
+
+    @Test
+    void add_shouldIgnoreReplayedTimestamps() {
+        RunningStats stats = RunningStats.empty();
+        stats.add(0, 10_000);
+        stats.add(DAY, 11_000);
+        stats.add(DAY, 5_000);
+
+        assertEquals(1, stats.getCount());
+        assertEquals(11_000, stats.getLastValue());
+    }
+
+    @Test
+    void merge_shouldEqualSequentialAccumulation() {
+        RunningStats whole = RunningStats.empty();
+        RunningStats first = RunningStats.empty();
+        for (int i = 0; i < CLOSES.length; i++) {
+            whole.add(i * DAY, CLOSES[i]);
+            if (i < 3) {
+                first.add(i * DAY, CLOSES[i]);
+            }
+        }
+        // The second bucket opens on the first bucket's last close, as month buckets do
+        RunningStats second = RunningStats.continuing(first);
+        for (int i = 3; i < CLOSES.length; i++) {
+            second.add(i * DAY, CLOSES[i]);
+        }
+
+        RunningStats merged = first.merge(second);
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMean(), merged.getMean(), 1e-12);
+        assertEquals(whole.variance(), merged.variance(), 1e-12);
+        assertEquals(whole.getMaxDrawdown(), merged.getMaxDrawdown(), 1e-12);
+        assertEquals(whole.totalReturn(), merged.totalReturn(), 1e-12);
+    }
+
+    @Test
+    void merge_shouldCatchDrawdownSpanningBuckets() {
+        RunningStats first = RunningStats.empty();
+        first.add(0, 10_000);
+        first.add(DAY, 12_000);
+        RunningStats second = RunningStats.continuing(first);
+        second.add(2 * DAY, 11_000);
+        second.add(3 * DAY, 9_000);
+
+        assertEquals(0.25, first.merge(second).getMaxDrawdown(), 1e-12);
+    }
+}
@@ -0,0 +1,82 @@
+package com.miowsis.portfolio.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValueSeriesCodecTest {
+
+    private static final long START = 1_700_000_000L;
+    private static final long QUARTER_HOUR = 900;
+
+    @Test
+    void encode_shouldRoundTripValuesIncludingDrops() {
+        ValueSeries series = ValueSeries.EMPTY
+                .append(START, 1_250_075)
+                .append(START + QUARTER_HOUR, 1_249_980)
+                .append(START + 2 * QUARTER_HOUR, 0)
+                .append(START + 3 * QUARTER_HOUR, 987_654_321_000L);
+
+        ValueSeries decoded = ValueSeriesCodec.decode(ValueSeriesCodec.encode(series));
+
+        assertArrayEquals(series.timestamps(), decoded.timestamps());
+        assertArrayEquals(series.values(), decoded.values());
+        assertEquals(new BigDecimal("12500.75"), decoded.value(0));
+    }
+
+    @Test
+    void encode_shouldPackADayOfIntradayPointsCompactly() {
+        ValueSeries series = ValueSeries.EMPTY;
+        long value = 2_500_000;
+        for (int i = 0; i < 96; i++) {
+            value += (i % 2 == 0 ? 1 : -1) * 1_500;
+            series = series.append(START + i * QUARTER_HOUR, value);
+        }
+
+        byte[] encoded = ValueSeriesCodec.encode(series);
+
+        // 16 bytes per point as raw longs; steady deltas need about 4
+        assertTrue(encoded.length < 96 * 5, "encoded size was " + encoded.length);
+        assertArrayEquals(series.values(), ValueSeriesCodec.decode(encoded).values());
+    }
+
+    @Test
+    void decode_shouldTreatMissingPayloadAsEmpty() {
+        assertEquals(0, ValueSeriesCodec.decode(null).size());
+        assertEquals(0, ValueSeriesCodec.decode(ValueSeriesCodec.encode(ValueSeries.EMPTY)).size());
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedPayload() {
+        byte[] encoded = ValueSeriesCodec.encode(ValueSeries.EMPTY.append(START, 100).append(START + 60, 200));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> ValueSeriesCodec.decode(truncated));
+    }
+
+    @Test
+    void append_shouldReplaceSameBucketAndIgnoreOlderPoints() {
+        ValueSeries series = ValueSeries.EMPTY
+                .append(START, 100)
+                .append(START + QUARTER_HOUR, 200)
+                .append(START + QUARTER_HOUR, 250)
+                .append(START, 999);
+
+        assertArrayEquals(new long[]{START, START + QUARTER_HOUR}, series.timestamps());
+        assertArrayEquals(new long[]{100, 250}, series.values());
+    }
+
+    @Test
+    void since_shouldDropPointsBeforeCutoff() {
+        ValueSeries series = ValueSeries.EMPTY.append(START, 1).append(START + 10, 2).append(START + 20, 3);
+
+        assertArrayEquals(new long[]{2, 3}, series.since(START + 5).values());
+        assertArrayEquals(new long[]{3}, series.since(START + 20).values());
+    }
+}
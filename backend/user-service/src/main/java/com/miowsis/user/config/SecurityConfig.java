@@ -1,6 +1,6 @@
 package com.miowsis.user.config;
 
-import com.miowsis.user.security.JwtAuthenticationFilter;
+import com.miowsis.user.security.GatewayIdentityAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,7 +29,7 @@ import java.util.Arrays;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final GatewayIdentityAuthenticationFilter gatewayIdentityAuthenticationFilter;
     private final UserDetailsService userDetailsService;
 
     @Bean
@@ -52,7 +52,7 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(gatewayIdentityAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -126,7 +126,9 @@ public class User implements UserDetails {
     }
 
     public enum Role {
-        USER, ADMIN, PREMIUM
+        USER, ADMIN, PREMIUM,
+        // Card partner service accounts, allowed to submit round-ups on behalf of users
+        PARTNER
     }
 
     public enum KycStatus {
@@ -0,0 +1,87 @@
+#!/bin/bash
+
+# Compares the servlet services on platform threads vs virtual threads under the same load.
+#
+#   scripts/load-test.sh run platform     # services started with VIRTUAL_THREADS_ENABLED=false
+#   scripts/load-test.sh run virtual      # restarted from a -PjavaVersion=21 build with VIRTUAL_THREADS_ENABLED=true
+#   scripts/load-test.sh compare platform virtual
+#
+# compare also writes its table to $RESULTS_DIR/<baseline>-vs-<candidate>.txt. Commit that file, with
+# the hardware and CONCURRENCY used, alongside any change to the VIRTUAL_THREADS_ENABLED defaults.
+# portfolio-service's own worker pools follow the same flag (see WorkerThreads), so both runs cover them.
+#
+# Requires `hey` (https://github.com/rakyll/hey). Set TOKEN to a valid access token and USER_ID to its user.
+
+set -euo pipefail
+
+GATEWAY_URL=${GATEWAY_URL:-http://localhost:8080}
+DURATION=${DURATION:-60s}
+CONCURRENCY=${CONCURRENCY:-200}
+RESULTS_DIR=${RESULTS_DIR:-load-test-results}
+USER_ID=${USER_ID:-}
+TOKEN=${TOKEN:-}
+
+# name|method|path — reads that block on JDBC and Redis, plus token verification in user-service
+ENDPOINTS=(
+    "portfolio|GET|/api/portfolio/portfolios/${USER_ID}"
+    "holdings|GET|/api/portfolio/portfolios/${USER_ID}/holdings?size=20"
+    "performance|GET|/api/portfolio/portfolios/${USER_ID}/performance?period=1M"
+    "verify-token|GET|/api/users/auth/verify"
+)
+
+run() {
+    local label=$1
+    command -v hey >/dev/null 2>&1 || { echo "❌ hey is required but not installed. Aborting." >&2; exit 1; }
+    [ -n "$USER_ID" ] && [ -n "$TOKEN" ] || { echo "❌ USER_ID and TOKEN must be set." >&2; exit 1; }
+
+    mkdir -p "$RESULTS_DIR/$label"
+    echo "🔥 Running $label load test: ${CONCURRENCY} concurrent clients for ${DURATION} per endpoint"
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        IFS='|' read -r name method path <<< "$endpoint"
+        echo "   → $name"
+        hey -z "$DURATION" -c "$CONCURRENCY" -m "$method" \
+            -H "Authorization: Bearer $TOKEN" \
+            "$GATEWAY_URL$path" > "$RESULTS_DIR/$label/$name.txt"
+    done
+
+    echo "✅ Results written to $RESULTS_DIR/$label"
+}
+
+# Pulls requests/sec and latency percentiles (ms) out of a hey report
+summarize() {
+    awk '
+        /Requests\/sec:/ { rps = $2 }
+        /  50% in/ { p50 = $3 * 1000 }
+        /  95% in/ { p95 = $3 * 1000 }
+        /  99% in/ { p99 = $3 * 1000 }
+        /\[5[0-9][0-9]\]/ { errors += $2 }
+        END { printf "%10.1f %10.1f %10.1f %10.1f %8d", rps, p50, p95, p99, errors }
+    ' "$1"
+}
+
+compare() {
+    local baseline=$1 candidate=$2
+    mkdir -p "$RESULTS_DIR"
+    compare_table "$baseline" "$candidate" | tee "$RESULTS_DIR/$baseline-vs-$candidate.txt"
+}
+
+compare_table() {
+    local baseline=$1 candidate=$2
+    printf "%-14s %-10s %10s %10s %10s %10s %8s\n" "endpoint" "mode" "req/s" "p50 ms" "p95 ms" "p99 ms" "5xx"
+    for endpoint in "${ENDPOINTS[@]}"; do
+        IFS='|' read -r name _ _ <<< "$endpoint"
+        for label in "$baseline" "$candidate"; do
+            local report="$RESULTS_DIR/$label/$name.txt"
+            if [ -f "$report" ]; then
+                printf "%-14s %-10s %s\n" "$name" "$label" "$(summarize "$report")"
+            fi
+        done
+    done
+}
+
+case "${1:-}" in
+    run) run "${2:?label required}" ;;
+    compare) compare "${2:-platform}" "${3:-virtual}" ;;
+    *) echo "Usage: $0 run <label> | compare <baseline> <candidate>" >&2; exit 1 ;;
+esac
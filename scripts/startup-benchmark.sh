@@ -0,0 +1,135 @@
+#!/bin/bash
+
+# Records time-to-ready for each service in standard and fast-startup (AOT + AppCDS + lazy init) mode.
+#
+#   scripts/startup-benchmark.sh                      # all services, 3 runs per mode
+#   RUNS=5 scripts/startup-benchmark.sh api-gateway   # selected services
+#
+# Start the infrastructure first (docker-compose up -d) so services can reach Postgres, Redis, Kafka
+# and Eureka. Time-to-ready is measured from process launch to the first 200 from /actuator/health.
+
+set -euo pipefail
+
+ROOT_DIR=$(cd "$(dirname "$0")/.." && pwd)
+WORK_DIR=${WORK_DIR:-$ROOT_DIR/build/startup-benchmark}
+RUNS=${RUNS:-3}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-180}
+RESULTS_FILE=${RESULTS_FILE:-$WORK_DIR/results.csv}
+
+declare -A PORTS=(
+    [api-gateway]=8080
+    [user-service]=8081
+    [portfolio-service]=8082
+    [esg-service]=8083
+    [ai-service]=8084
+)
+
+if [ $# -gt 0 ]; then
+    SERVICES=("$@")
+else
+    SERVICES=(api-gateway user-service portfolio-service esg-service ai-service)
+fi
+
+command -v java >/dev/null 2>&1 || { echo "❌ Java is required but not installed. Aborting." >&2; exit 1; }
+command -v curl >/dev/null 2>&1 || { echo "❌ curl is required but not installed. Aborting." >&2; exit 1; }
+
+now_ms() {
+    date +%s%3N
+}
+
+build() {
+    local mode=$1 flags=$2
+    echo "📦 Building $mode jars..."
+    (cd "$ROOT_DIR/backend" && gradle $(printf ':%s:bootJar ' "${SERVICES[@]}") $flags --quiet)
+    for service in "${SERVICES[@]}"; do
+        mkdir -p "$WORK_DIR/$mode/$service"
+        cp "$ROOT_DIR"/backend/"$service"/build/libs/*.jar "$WORK_DIR/$mode/$service/app.jar"
+    done
+}
+
+# Same steps as the FAST_STARTUP image: unpack, then a training start that records the CDS archive
+train_cds() {
+    local service=$1
+    local dir="$WORK_DIR/fast/$service"
+    echo "🎓 Recording CDS archive for $service..."
+    (
+        cd "$dir"
+        rm -rf exploded && mkdir exploded && (cd exploded && jar -xf ../app.jar)
+        sed -n 's/^Start-Class: *//p' exploded/META-INF/MANIFEST.MF | tr -d '\r' > start-class
+        # Same system properties and environment as the fast launch, so the archive matches what it loads
+        LAZY_INITIALIZATION=true java -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh \
+            -Dspring.aot.enabled=true -Dspring.cloud.refresh.enabled=false \
+            -cp "exploded/BOOT-INF/classes:exploded/BOOT-INF/lib/*" "$(cat start-class)" > training.log 2>&1 || true
+    )
+}
+
+launch() {
+    local mode=$1 service=$2
+    local dir="$WORK_DIR/$mode/$service"
+    if [ "$mode" = "fast" ]; then
+        (cd "$dir" && LAZY_INITIALIZATION=true exec java -XX:SharedArchiveFile=app.jsa -Xshare:auto \
+            -Dspring.aot.enabled=true -Dspring.cloud.refresh.enabled=false \
+            -cp "exploded/BOOT-INF/classes:exploded/BOOT-INF/lib/*" "$(cat start-class)") > "$dir/run.log" 2>&1 &
+    else
+        (cd "$dir" && exec java -jar app.jar) > "$dir/run.log" 2>&1 &
+    fi
+    echo $!
+}
+
+measure() {
+    local mode=$1 service=$2
+    local port=${PORTS[$service]}
+    local start pid elapsed
+    start=$(now_ms)
+    pid=$(launch "$mode" "$service")
+
+    while true; do
+        if curl -sf -o /dev/null "http://localhost:$port/actuator/health"; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null || [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+            elapsed=-1
+            break
+        fi
+        sleep 0.1
+    done
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+mkdir -p "$WORK_DIR"
+build standard ""
+build fast "-PfastStartup"
+for service in "${SERVICES[@]}"; do
+    train_cds "$service"
+done
+
+echo "service,mode,run,time_to_ready_ms" > "$RESULTS_FILE"
+for service in "${SERVICES[@]}"; do
+    for mode in standard fast; do
+        for run in $(seq 1 "$RUNS"); do
+            elapsed=$(measure "$mode" "$service")
+            echo "$service,$mode,$run,$elapsed" >> "$RESULTS_FILE"
+            if [ "$elapsed" -lt 0 ]; then
+                echo "⚠️  $service ($mode) run $run did not become ready, see $WORK_DIR/$mode/$service/run.log"
+            else
+                echo "⏱️  $service ($mode) run $run: ${elapsed}ms"
+            fi
+        done
+    done
+done
+
+echo ""
+echo "📊 Median time-to-ready (ms):"
+awk -F, 'NR > 1 && $4 >= 0 { times[$1 "," $2] = times[$1 "," $2] " " $4 }
+    END {
+        for (key in times) {
+            n = split(substr(times[key], 2), values, " ")
+            asort(values)
+            printf "   %-30s %8d\n", key, values[int((n + 1) / 2)]
+        }
+    }' "$RESULTS_FILE" | sort
+echo "✅ Raw results in $RESULTS_FILE"